@@ -0,0 +1,35 @@
+package com.example.multitenant.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AfterCommit: defers side effects of a change, e.g. invalidating caches or updating in-memory indexes, until the
+ * surrounding transaction has been committed. Readers can then no longer see the previous state in the database, and
+ * changes which are rolled back leave no trace. Without a transaction the action runs right away.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs action after the commit of the current transaction, or immediately if there is none. The action runs on
+     * the committing thread and therefore within the context of the same tenant.
+     *
+     * @param action to run.
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -3,6 +3,8 @@ package com.example.multitenant.config;
 import com.example.multitenant.config.properties.DatabaseProperties;
 import com.example.multitenant.entity.User;
 import com.github.fluent.hibernate.cfg.scanner.EntityScanner;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
@@ -10,12 +12,13 @@ import org.hibernate.tool.schema.TargetType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.jdbc.datasource.init.ScriptException;
-import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -30,44 +33,73 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableTransactionManagement
 public class DatabaseConfig {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static final Map<Object, Object> configurations = new HashMap<>();
     private static final String ENTITY_PACKAGE = "com.example.multitenant.entity";
-    private static final String CREATE_TENANT_URI = "src/main/resources/create.sql";
-    private static final String CREATE_DEFAULT_URI = "src/main/resources/create_default.sql";
+    private static final Path SCHEMA_DIRECTORY = Path.of("src/main/resources");
+    private static final String CREATE_TENANT_FILE = "create.sql";
+    private static final String CREATE_DEFAULT_FILE = "create_default.sql";
+    private static final Timer ACTIVATE_TIMER = Timer.builder("tenant.activate")
+            .description("Time to select the data source of a tenant, including opening it if necessary")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+    private static final Timer ADD_TIMER = Timer.builder("tenant.add")
+            .description("Time to open and migrate the database of a tenant")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
 
     private final DatabaseProperties databaseProperties;
     private final ResourceLoader resourceLoader;
+    private final TenantStorageStrategy tenantStorage;
+    private final TenantMigrator tenantMigrator;
     private final RoutingDataSource dataSource;
+    private final DataSource defaultDataSource;
+    private final TenantRegistry tenantRegistry;
 
     @Autowired
-    public DatabaseConfig(DatabaseProperties databaseProperties, ResourceLoader resourceLoader) {
+    public DatabaseConfig(DatabaseProperties databaseProperties, ResourceLoader resourceLoader,
+                          TenantStorageStrategy tenantStorage, TenantMigrator tenantMigrator) {
         this.databaseProperties = databaseProperties;
         this.resourceLoader = resourceLoader;
+        this.tenantStorage = tenantStorage;
+        this.tenantMigrator = tenantMigrator;
 
-        dataSource = new RoutingDataSource();
+        defaultDataSource = databaseProperties.dataSource(DBContextHolder.DEFAULT_DATASOURCE, DBContextHolder.DEFAULT_DATASOURCE);
+        tenantRegistry = new TenantRegistry(databaseProperties.getTenantMaxOpen(),
+                databaseProperties.getTenantIdleTimeout(), this::addDataSource, tenantStorage::close);
+        dataSource = new RoutingDataSource(defaultDataSource, tenantRegistry);
+
+        // reserved ids are dropped with their tenant, a reopened tenant reserves a new block
+        tenantRegistry.addCloseListener(TenantSequenceGenerator::reset);
     }
 
     @Bean
     public DataSource dataSource() {
-        loadDataSources().forEach(this::addDataSource);
+        populateDataSource(defaultDataSource, "classpath:create_default.sql");
 
-        dataSource.setTargetDataSources(configurations);
-        dataSource.setDefaultTargetDataSource(configurations.get(DBContextHolder.DEFAULT_DATASOURCE));
+        // in lazy mode tenants are opened by the registry on their first request
+        if (!databaseProperties.getTenantLazy()) {
+            tenantStorage.list().stream()
+                    .limit(databaseProperties.getTenantMaxOpen())
+                    .forEach(tenantRegistry::get);
+        }
 
         return dataSource;
     }
 
+    @Bean
+    public TenantRegistry tenantRegistry() {
+        return tenantRegistry;
+    }
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -76,6 +108,10 @@ public class DatabaseConfig {
         em.setDataSource(dataSource);
         em.setPackagesToScan(ENTITY_PACKAGE);
         em.setJpaVendorAdapter(vendorAdapter);
+        em.setJpaPropertyMap(Map.of(
+                "hibernate.jdbc.batch_size", databaseProperties.getBatchSize(),
+                "hibernate.order_inserts", true
+        ));
 
         return em;
     }
@@ -83,12 +119,12 @@ public class DatabaseConfig {
     @Bean
     public LocalSessionFactoryBean sessionFactory() {
         MetadataSources metadataSources = generateMetadata(true);
-        if (Files.notExists(Path.of(CREATE_DEFAULT_URI))) createDataSourceSchema(metadataSources);
-        if (Files.notExists(Path.of(CREATE_TENANT_URI))) createDataSourceSchema(generateMetadata(false));
+        if (Files.notExists(SCHEMA_DIRECTORY.resolve(CREATE_DEFAULT_FILE))) createDataSourceSchema(metadataSources);
+        if (Files.notExists(SCHEMA_DIRECTORY.resolve(CREATE_TENANT_FILE))) createDataSourceSchema(generateMetadata(false));
 
         LocalSessionFactoryBean sessionFactory = new LocalSessionFactoryBean();
         sessionFactory.setMetadataSources(metadataSources);
-        sessionFactory.setDataSource((DataSource) configurations.get(DBContextHolder.DEFAULT_DATASOURCE));
+        sessionFactory.setDataSource(defaultDataSource);
         sessionFactory.setPackagesToScan(ENTITY_PACKAGE);
 
         Properties hibernateProperties = new Properties();
@@ -107,6 +143,37 @@ public class DatabaseConfig {
         return transactionManager;
     }
 
+    /**
+     * Rolls out pending migrations to all tenants after startup if eager migration is enabled. Requests which arrive
+     * in the meantime migrate their tenant on open.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateEagerly() {
+        if (!databaseProperties.getTenantMigrationEager()) return;
+
+        Thread thread = new Thread(this::migrateTenants, "tenant-migration-rollout");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Migrates all existing tenants with bounded parallelism. Closed tenants are migrated on a short-lived data source
+     * outside the registry, so the rollout neither displaces open tenants nor counts as their requests. Open tenants
+     * have been migrated when they were opened and are skipped.
+     *
+     * @return progress including failures per tenant.
+     */
+    public TenantMigrator.Progress migrateTenants() {
+        return tenantMigrator.migrateAll(tenantStorage.list(), identifier -> tenantRegistry.runIfClosed(identifier, () -> {
+            DataSource tenantDataSource = tenantStorage.open(identifier);
+            try {
+                tenantMigrator.migrate(identifier, tenantDataSource);
+            } finally {
+                tenantStorage.close(identifier, tenantDataSource);
+            }
+        }), databaseProperties.getTenantMigrationParallelism());
+    }
+
     /**
      * Renames datasource identifier to new username.
      *
@@ -118,14 +185,21 @@ public class DatabaseConfig {
         String oldIdentifier = DBContextHolder.generateDataSourceName(oldUsername);
         String newIdentifier = DBContextHolder.generateDataSourceName(newUsername);
 
-        DataSource dataSource = (DataSource) configurations.remove(oldIdentifier);
-        if (dataSource == null) return;
-
-        configurations.put(newIdentifier, dataSource);
-        String[] extensions = new String[]{"mv", "trace"};
-        for (String extension : extensions) {
-            Path source = Paths.get(databaseProperties.getDirectory() + "/" + oldIdentifier + "." + extension + ".db");
-            if (Files.exists(source)) Files.move(source, source.resolveSibling(newIdentifier + "." + extension + ".db"));
+        FlightRecorderEvents.TenantRename event = new FlightRecorderEvents.TenantRename();
+        event.begin();
+
+        // close the tenant first, it is reopened under its new identifier on the next access
+        tenantRegistry.evict(oldIdentifier);
+        tenantRegistry.evict(newIdentifier);
+        tenantStorage.rename(oldIdentifier, newIdentifier);
+        TenantSequenceGenerator.reset(oldIdentifier);
+        TenantSequenceGenerator.reset(newIdentifier);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = oldIdentifier;
+            event.newTenant = newIdentifier;
+            event.commit();
         }
     }
 
@@ -135,42 +209,47 @@ public class DatabaseConfig {
      * @param username non-hashed identifier of user.
      */
     public void setActiveDatasource(String username) {
-        String dataSourceName = DBContextHolder.generateDataSourceName(username);
-
-        if (!configurations.containsKey(dataSourceName)) {
-            if (Files.exists(Path.of(databaseProperties.getDirectory() + "/" + dataSourceName + ".mv.db"))) {
-                configurations.put(dataSourceName, databaseProperties.dataSource(dataSourceName, DBContextHolder.DEFAULT_DATASOURCE));
-            } else {
-                addDataSource(dataSourceName);
-            }
-        }
-
-        dataSource.afterPropertiesSet();
-        DBContextHolder.setContext(username);
+        setActiveTenant(DBContextHolder.generateDataSourceName(username));
     }
 
     /**
-     * Gets configuration. Only used for testing purposes.
+     * Sets active context to datasource of already hashed tenant identifier.
      *
-     * @return a map containing all data sources.
+     * @param identifier hashed identifier of user.
      */
-    protected Map<Object, Object> getConfigurations() {
-        return configurations;
+    public void setActiveTenant(String identifier) {
+        long start = System.nanoTime();
+        tenantRegistry.get(identifier);
+        DBContextHolder.setIdentifier(identifier);
+        ACTIVATE_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
     /**
-     * Creates sql file from schema.
+     * Creates sql file from schema in the resources.
      *
      * @param metadataSources containing annotated classes.
      */
     protected void createDataSourceSchema(MetadataSources metadataSources) {
+        createDataSourceSchema(metadataSources, SCHEMA_DIRECTORY);
+    }
+
+    /**
+     * Creates sql file from schema in the given directory. Scripts are appended to an existing file.
+     *
+     * @param metadataSources containing annotated classes.
+     * @param directory to create create_default.sql or create.sql in.
+     * @return path of the created file.
+     */
+    protected Path createDataSourceSchema(MetadataSources metadataSources, Path directory) {
         SchemaExport schemaExport = new SchemaExport();
         List<Class<?>> classes = new ArrayList<>(metadataSources.getAnnotatedClasses());
+        Path file = directory.resolve(classes.size() == 1 && classes.contains(User.class) ? CREATE_DEFAULT_FILE : CREATE_TENANT_FILE);
 
         schemaExport.setFormat(true);
         schemaExport.setDelimiter(";");
-        schemaExport.setOutputFile(classes.size() == 1 && classes.contains(User.class) ? CREATE_DEFAULT_URI : CREATE_TENANT_URI);
+        schemaExport.setOutputFile(file.toString());
         schemaExport.createOnly(EnumSet.of(TargetType.SCRIPT), metadataSources.buildMetadata());
+        return file;
     }
 
     /**
@@ -204,35 +283,49 @@ public class DatabaseConfig {
     }
 
     /**
-     * Loads list containing each datasource.
+     * Opens datasource of tenant through the configured storage strategy and applies pending migrations.
      *
-     * @return list of datasource names. If none are found, the default datasource is returned.
+     * @param hashedUsername datasource identifier.
+     * @return newly created datasource.
+     * @throws com.example.multitenant.exceptionhandler.exceptions.MigrationException if migrating fails.
      */
-    private List<String> loadDataSources() {
-        List<String> dataSources = new ArrayList<>();
-        try {
-            dataSources = Files.list(Path.of(databaseProperties.getDirectory() + "/"))
-                    .filter(file -> file.getFileName().toString().endsWith("mv.db"))
-                    .map(file -> file.getFileName().toString().split("\\.")[0])
-                    .collect(Collectors.toList());
-        } catch (IOException ignored) {}
+    private DataSource addDataSource(String hashedUsername) {
+        return ADD_TIMER.record(() -> {
+            FlightRecorderEvents.TenantOpen open = new FlightRecorderEvents.TenantOpen();
+            open.begin();
+            DataSource tenantDataSource = tenantStorage.open(hashedUsername);
+            open.end();
+            if (open.shouldCommit()) {
+                open.tenant = hashedUsername;
+                open.commit();
+            }
 
+            FlightRecorderEvents.TenantMigrate migrate = new FlightRecorderEvents.TenantMigrate();
+            migrate.begin();
+            try {
+                tenantMigrator.migrate(hashedUsername, tenantDataSource);
+            } catch (RuntimeException e) {
+                tenantStorage.close(hashedUsername, tenantDataSource);
+                throw e;
+            }
+            migrate.end();
+            if (migrate.shouldCommit()) {
+                migrate.tenant = hashedUsername;
+                migrate.commit();
+            }
 
-        return dataSources.isEmpty() ? Collections.singletonList(DBContextHolder.DEFAULT_DATASOURCE) : dataSources;
+            return tenantDataSource;
+        });
     }
 
     /**
-     * Saves newly created datasource and initializes it.
+     * Runs sql script against datasource.
      *
-     * @param hashedUsername datasource identifier.
+     * @param dataSource to initialize.
+     * @param filename of sql script.
      */
-    private void addDataSource(String hashedUsername) {
-        DataSource dataSource = databaseProperties.dataSource(hashedUsername, DBContextHolder.DEFAULT_DATASOURCE);
-        configurations.put(hashedUsername, dataSource);
-
+    private void populateDataSource(DataSource dataSource, String filename) {
         try {
-            String filename = hashedUsername.equals(DBContextHolder.DEFAULT_DATASOURCE) ?
-                    "classpath:create_default.sql" : "classpath:create.sql";
             new ResourceDatabasePopulator(resourceLoader.getResource(filename)).execute(dataSource);
         } catch (ScriptException ignored) {}
     }
@@ -242,8 +335,15 @@ public class DatabaseConfig {
      */
     public static class DBContextHolder {
 
+        public static final String DEFAULT_DATASOURCE = "db";
         private static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
-        private static final String DEFAULT_DATASOURCE = "db";
+        private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        });
 
         /**
          * Sets context to default datasource.
@@ -259,40 +359,38 @@ public class DatabaseConfig {
          * @param context in form of the username.
          */
         public static void setContext(String context) {
-            String identifier = generateDataSourceName(context);
+            setIdentifier(generateDataSourceName(context));
+        }
 
+        /**
+         * Sets context to already hashed identifier of active user.
+         *
+         * @param identifier of datasource.
+         */
+        public static void setIdentifier(String identifier) {
             CONTEXT.set(identifier);
             LOGGER.debug("Datasource Identifier: {}", identifier);
         }
 
         /**
-         * Generates datasource identifier.
+         * Gets identifier of active datasource.
          *
-         * @param username identifier of user.
-         * @return a string representing the hashed username.
+         * @return identifier or null if no context has been set.
          */
-        protected static String generateDataSourceName(String username) {
-            MessageDigest messageDigest = null;
-
-            try {
-                messageDigest = MessageDigest.getInstance("SHA-256");
-                messageDigest.update(username.getBytes());
-            } catch (NoSuchAlgorithmException ignored) {}
-
-            assert messageDigest != null;
-            return DatatypeConverter.printHexBinary(messageDigest.digest());
+        public static String getContext() {
+            return CONTEXT.get();
         }
-    }
 
-    /**
-     * RoutingDataSource: responsible for the lookup of database.
-     */
-    private static class RoutingDataSource extends AbstractRoutingDataSource {
-        @Override
-        protected Object determineCurrentLookupKey() {
-            String context = DBContextHolder.CONTEXT.get();
-            LOGGER.debug("Current datasource: " + context);
-            return context;
+        /**
+         * Generates datasource identifier. Requests carry the identifier in their token, hence this is only needed
+         * when issuing tokens or for tokens which have been issued without it.
+         *
+         * @param username identifier of user.
+         * @return a string representing the hashed username.
+         */
+        public static String generateDataSourceName(String username) {
+            MessageDigest messageDigest = DIGEST.get();
+            return DatatypeConverter.printHexBinary(messageDigest.digest(username.getBytes()));
         }
     }
 }
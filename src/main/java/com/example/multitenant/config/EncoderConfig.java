@@ -1,5 +1,7 @@
 package com.example.multitenant.config;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -9,12 +11,73 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class EncoderConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() { return new BCryptPasswordEncoder(); }
+    public PasswordEncoder passwordEncoder() { return getPasswordEncoder(); }
 
     /**
      * Gets new password encoder to use in entities.
      *
      * @return password encoder.
      */
-    public static PasswordEncoder getPasswordEncoder() { return new BCryptPasswordEncoder(); }
+    public static PasswordEncoder getPasswordEncoder() { return new TimedPasswordEncoder(new BCryptPasswordEncoder()); }
+
+    /**
+     * TimedPasswordEncoder: records the time of hashing passwords on signup and of verifying them on login.
+     */
+    private static final class TimedPasswordEncoder implements PasswordEncoder {
+
+        private static final Timer ENCODE_TIMER = timer("encode");
+        private static final Timer MATCHES_TIMER = timer("matches");
+
+        private final PasswordEncoder delegate;
+
+        private TimedPasswordEncoder(PasswordEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            FlightRecorderEvents.PasswordHash event = new FlightRecorderEvents.PasswordHash();
+            event.begin();
+            String encoded = ENCODE_TIMER.record(() -> delegate.encode(rawPassword));
+            commit(event, "encode");
+            return encoded;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            FlightRecorderEvents.PasswordHash event = new FlightRecorderEvents.PasswordHash();
+            event.begin();
+            boolean matches = MATCHES_TIMER.record(() -> delegate.matches(rawPassword, encodedPassword));
+            commit(event, "matches");
+            return matches;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+
+        /**
+         * Commits event of a password operation. The event carries no tenant, as the tenant context of the thread
+         * may still belong to a previous request while the user of the password isn't known to the encoder.
+         *
+         * @param event begun before the operation.
+         * @param operation encode or matches.
+         */
+        private static void commit(FlightRecorderEvents.PasswordHash event, String operation) {
+            event.end();
+            if (!event.shouldCommit()) return;
+
+            event.operation = operation;
+            event.commit();
+        }
+
+        private static Timer timer(String operation) {
+            return Timer.builder("auth.bcrypt")
+                    .description("Time to hash or verify a password")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry);
+        }
+    }
 }
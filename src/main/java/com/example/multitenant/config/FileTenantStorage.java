@@ -0,0 +1,151 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.exceptionhandler.exceptions.ConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * FileTenantStorage: stores each tenant in its own database file with its own connection pool. Files of new tenants
+ * are provisioned from a pre-built template by the {@link TenantProvisioner}.
+ */
+@Component
+@ConditionalOnProperty(name = "tenant.storage", havingValue = "file", matchIfMissing = true)
+public class FileTenantStorage implements TenantStorageStrategy, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String PROVISIONING_DIRECTORY = "provisioning";
+
+    private final DatabaseProperties databaseProperties;
+    private final ResourceLoader resourceLoader;
+    private final TenantMigrator tenantMigrator;
+    private final TenantProvisioner provisioner;
+
+    @Autowired
+    public FileTenantStorage(DatabaseProperties databaseProperties, ResourceLoader resourceLoader,
+                             TenantMigrator tenantMigrator) throws IOException {
+        this.databaseProperties = databaseProperties;
+        this.resourceLoader = resourceLoader;
+        this.tenantMigrator = tenantMigrator;
+
+        provisioner = new TenantProvisioner(Path.of(databaseProperties.getDirectory(), PROVISIONING_DIRECTORY),
+                databaseProperties.getTenantSparePoolSize(), this::buildTemplate);
+    }
+
+    @Override
+    public DataSource open(String identifier) {
+        Path file = Path.of(databaseProperties.getDirectory(), identifier + TenantProvisioner.EXTENSION);
+        if (Files.notExists(file)) {
+            try {
+                provisioner.provision(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not provision tenant " + identifier, e);
+            }
+        }
+
+        return databaseProperties.dataSource(identifier, DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE);
+    }
+
+    /**
+     * Shuts down database of tenant and closes its connection pool.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @param dataSource to close.
+     */
+    @Override
+    public void close(String identifier, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            LOGGER.warn("Could not shut down datasource {}: {}", identifier, e.getMessage());
+        }
+
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close datasource {}: {}", identifier, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void rename(String oldIdentifier, String newIdentifier) throws IOException {
+        String[] extensions = new String[]{"mv", "trace"};
+        Path database = Paths.get(databaseProperties.getDirectory() + "/" + oldIdentifier + TenantProvisioner.EXTENSION);
+        if (Files.exists(database) && Files.exists(database.resolveSibling(newIdentifier + TenantProvisioner.EXTENSION))) {
+            throw new ConflictException("Database of tenant " + newIdentifier + " already exists");
+        }
+
+        for (String extension : extensions) {
+            Path source = Paths.get(databaseProperties.getDirectory() + "/" + oldIdentifier + "." + extension + ".db");
+            if (Files.exists(source)) Files.move(source, source.resolveSibling(newIdentifier + "." + extension + ".db"));
+        }
+    }
+
+    @Override
+    public List<String> list() {
+        List<String> identifiers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Path.of(databaseProperties.getDirectory() + "/"))) {
+            identifiers = files
+                    .filter(file -> file.getFileName().toString().endsWith(TenantProvisioner.EXTENSION))
+                    .map(file -> file.getFileName().toString().split("\\.")[0])
+                    .filter(identifier -> !identifier.equals(DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE))
+                    .collect(Collectors.toList());
+        } catch (IOException ignored) {}
+
+        return identifiers;
+    }
+
+    @Override
+    public void destroy() {
+        provisioner.close();
+    }
+
+    public TenantProvisioner getProvisioner() {
+        return provisioner;
+    }
+
+    /**
+     * Builds the template database of tenants. The schema script is executed once, all migrations are applied and
+     * the database is compacted while it is shut down, so copies of it are up to date and as small as possible.
+     *
+     * @param template path of the template database without file extension.
+     */
+    private void buildTemplate(Path template) {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + template.toAbsolutePath(),
+                databaseProperties.getUsername(), databaseProperties.getPassword())) {
+            new ResourceDatabasePopulator(resourceLoader.getResource("classpath:create.sql")).populate(connection);
+            tenantMigrator.migrate("template", connection);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN COMPACT");
+            }
+        } catch (SQLException | ScriptException e) {
+            throw new IllegalStateException("Could not build tenant template", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.multitenant.config;
+
+import jdk.jfr.*;
+
+/**
+ * FlightRecorderEvents: JDK Flight Recorder events of the tenant lifecycle, request routing and authorization. Each
+ * event carries the hashed tenant identifier and its duration. Fields are only filled in if the event is going to be
+ * committed, so a disabled event costs no more than a check of its enabled flag.
+ * <p>
+ * Record with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}; routing lookups are frequent and only
+ * recorded if they take longer than the configured threshold.
+ */
+public final class FlightRecorderEvents {
+
+    private static final String CATEGORY = "Multitenant";
+
+    private FlightRecorderEvents() {
+    }
+
+    @Name("com.example.multitenant.TenantOpen")
+    @Label("Tenant Open")
+    @Description("Tenant datasource created through the storage strategy")
+    @Category({CATEGORY, "Tenant"})
+    public static final class TenantOpen extends Event {
+
+        @Label("Tenant")
+        public String tenant;
+    }
+
+    @Name("com.example.multitenant.TenantMigrate")
+    @Label("Tenant Migrate")
+    @Description("Schema of a newly opened tenant populated or migrated")
+    @Category({CATEGORY, "Tenant"})
+    public static final class TenantMigrate extends Event {
+
+        @Label("Tenant")
+        public String tenant;
+    }
+
+    @Name("com.example.multitenant.TenantRename")
+    @Label("Tenant Rename")
+    @Description("Tenant storage renamed after the email of its user has changed")
+    @Category({CATEGORY, "Tenant"})
+    public static final class TenantRename extends Event {
+
+        @Label("Tenant")
+        public String tenant;
+
+        @Label("New Tenant")
+        public String newTenant;
+    }
+
+    @Name("com.example.multitenant.TenantRoute")
+    @Label("Tenant Route")
+    @Description("Datasource of the active tenant looked up for a connection, opening it if needed")
+    @Category({CATEGORY, "Routing"})
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class TenantRoute extends Event {
+
+        @Label("Tenant")
+        public String tenant;
+    }
+
+    @Name("com.example.multitenant.JwtVerify")
+    @Label("JWT Verify")
+    @Description("Token verified or served from the claims cache")
+    @Category({CATEGORY, "Authorization"})
+    @StackTrace(false)
+    public static final class JwtVerify extends Event {
+
+        @Label("Tenant")
+        public String tenant;
+    }
+
+    @Name("com.example.multitenant.PasswordHash")
+    @Label("Password Hash")
+    @Description("Password hashed on signup or verified on login by BCrypt")
+    @Category({CATEGORY, "Authorization"})
+    public static final class PasswordHash extends Event {
+
+        @Label("Operation")
+        public String operation;
+    }
+}
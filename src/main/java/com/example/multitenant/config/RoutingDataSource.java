@@ -0,0 +1,71 @@
+package com.example.multitenant.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandles;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * RoutingDataSource: responsible for the lookup of database.
+ * <p>
+ * Tenants are resolved straight from the tenant registry instead of the resolved map of
+ * {@link AbstractRoutingDataSource}, so newly registered tenants never require the routing to be rebuilt.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final DataSource defaultDataSource;
+    private final TenantRegistry tenantRegistry;
+
+    public RoutingDataSource(DataSource defaultDataSource, TenantRegistry tenantRegistry) {
+        this.defaultDataSource = defaultDataSource;
+        this.tenantRegistry = tenantRegistry;
+
+        setTargetDataSources(Collections.emptyMap());
+        setDefaultTargetDataSource(defaultDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            // the tenant has been evicted between lookup and checkout, look it up again to reopen it
+            if (!(target instanceof HikariDataSource) || !((HikariDataSource) target).isClosed()) throw e;
+            return determineTargetDataSource().getConnection();
+        }
+    }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        String context = determineCurrentLookupKey();
+        if (context == null || context.equals(DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE)) {
+            return defaultDataSource;
+        }
+
+        FlightRecorderEvents.TenantRoute event = new FlightRecorderEvents.TenantRoute();
+        event.begin();
+        DataSource target = tenantRegistry.get(context);
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = context;
+            event.commit();
+        }
+        return target;
+    }
+
+    @Override
+    protected String determineCurrentLookupKey() {
+        String context = DatabaseConfig.DBContextHolder.getContext();
+        LOGGER.debug("Current datasource: {}", context);
+        return context;
+    }
+}
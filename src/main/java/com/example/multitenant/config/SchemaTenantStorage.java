@@ -0,0 +1,144 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.exceptionhandler.exceptions.ConflictException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SchemaTenantStorage: stores all tenants as schemas of one shared database which is served by a single connection
+ * pool. The schema of a tenant is selected whenever a connection is checked out.
+ */
+@Component
+@ConditionalOnProperty(name = "tenant.storage", havingValue = "schema")
+public class SchemaTenantStorage implements TenantStorageStrategy, DisposableBean {
+
+    private static final String SHARED_DATASOURCE = "tenants";
+
+    private final ResourceLoader resourceLoader;
+    private final DataSource sharedDataSource;
+
+    @Autowired
+    public SchemaTenantStorage(DatabaseProperties databaseProperties, ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+
+        sharedDataSource = databaseProperties.dataSource(SHARED_DATASOURCE, DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE);
+        if (sharedDataSource instanceof HikariDataSource) {
+            ((HikariDataSource) sharedDataSource).getHikariConfigMXBean().setMaximumPoolSize(databaseProperties.getTenantSchemaPoolSize());
+        }
+    }
+
+    @Override
+    public DataSource open(String identifier) {
+        try (Connection connection = sharedDataSource.getConnection()) {
+            if (!exists(connection, identifier)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE SCHEMA \"" + identifier + "\"");
+                }
+
+                connection.setSchema(identifier);
+                new ResourceDatabasePopulator(resourceLoader.getResource("classpath:create.sql")).populate(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open schema of tenant " + identifier, e);
+        }
+
+        return new TenantDataSource(sharedDataSource, identifier);
+    }
+
+    /**
+     * Nothing to release, connections belong to the shared pool.
+     */
+    @Override
+    public void close(String identifier, DataSource dataSource) {}
+
+    @Override
+    public void rename(String oldIdentifier, String newIdentifier) {
+        try (Connection connection = sharedDataSource.getConnection()) {
+            if (!exists(connection, oldIdentifier)) return;
+            if (exists(connection, newIdentifier)) {
+                throw new ConflictException("Schema of tenant " + newIdentifier + " already exists");
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER SCHEMA \"" + oldIdentifier + "\" RENAME TO \"" + newIdentifier + "\"");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not rename schema of tenant " + oldIdentifier, e);
+        }
+    }
+
+    @Override
+    public List<String> list() {
+        List<String> identifiers = new ArrayList<>();
+        try (Connection connection = sharedDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT SCHEMA_NAME FROM INFORMATION_SCHEMA.SCHEMATA " +
+                     "WHERE SCHEMA_NAME NOT IN ('INFORMATION_SCHEMA', 'PUBLIC')")) {
+            while (resultSet.next()) identifiers.add(resultSet.getString(1));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not list tenant schemas", e);
+        }
+
+        return identifiers;
+    }
+
+    @Override
+    public void destroy() {
+        if (sharedDataSource instanceof HikariDataSource) ((HikariDataSource) sharedDataSource).close();
+    }
+
+    /**
+     * Checks if schema of tenant exists.
+     *
+     * @param connection to shared database.
+     * @param identifier hashed identifier of tenant.
+     * @return true if the schema exists.
+     * @throws SQLException if the lookup fails.
+     */
+    private boolean exists(Connection connection, String identifier) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME = ?")) {
+            statement.setString(1, identifier);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * TenantDataSource: hands out connections of the shared pool switched to the schema of one tenant.
+     */
+    private static class TenantDataSource extends DelegatingDataSource {
+
+        private final String schema;
+
+        private TenantDataSource(DataSource sharedDataSource, String schema) {
+            super(sharedDataSource);
+            this.schema = schema;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                connection.setSchema(schema);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return connection;
+        }
+    }
+}
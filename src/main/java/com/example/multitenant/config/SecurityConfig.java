@@ -1,9 +1,12 @@
 package com.example.multitenant.config;
 
+import com.example.multitenant.config.properties.DatabaseProperties;
 import com.example.multitenant.config.properties.SecurityProperties;
 import com.example.multitenant.security.JwtAuthentication;
 import com.example.multitenant.security.JwtAuthorization;
 import com.example.multitenant.security.JwtTokenizer;
+import com.example.multitenant.security.TenantBulkhead;
+import com.example.multitenant.security.TenantRateLimiter;
 import com.example.multitenant.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -35,16 +38,19 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenizer tokenizer;
     private final SecurityProperties securityProperties;
+    private final DatabaseProperties databaseProperties;
     private final DatabaseConfig databaseConfig;
     private final RequestMatcher whitelistRequests;
 
     @Autowired
     public SecurityConfig(UserService userService, PasswordEncoder passwordEncoder, JwtTokenizer tokenizer,
-                          SecurityProperties securityProperties, DatabaseConfig databaseConfig) {
+                          SecurityProperties securityProperties, DatabaseProperties databaseProperties,
+                          DatabaseConfig databaseConfig) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.tokenizer = tokenizer;
         this.securityProperties = securityProperties;
+        this.databaseProperties = databaseProperties;
         this.databaseConfig = databaseConfig;
 
         this.whitelistRequests = new OrRequestMatcher(securityProperties.getWhitelist()
@@ -89,7 +95,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .anyRequest().authenticated()
                 .and()
                 .addFilter(new JwtAuthentication(authenticationManager(), tokenizer, securityProperties.getLoginUri()))
-                .addFilter(new JwtAuthorization(authenticationManager(), securityProperties, databaseConfig, userService))
+                .addFilter(new JwtAuthorization(authenticationManager(), tokenizer, securityProperties, databaseConfig,
+                        userService))
+                // filters after the same filter keep their order, so rate limited requests never take a bulkhead slot
+                .addFilterAfter(new TenantRateLimiter(securityProperties), JwtAuthorization.class)
+                .addFilterAfter(new TenantBulkhead(databaseProperties), JwtAuthorization.class)
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     }
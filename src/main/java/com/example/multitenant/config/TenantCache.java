@@ -0,0 +1,116 @@
+package com.example.multitenant.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * TenantCache: cache with a separate region per tenant. Entries are always looked up in the region of the active
+ * tenant, so tenants can never see each other's values, and every region is bounded by its own memory budget, so a
+ * busy tenant can't displace the entries of the others. Regions are created on first use and should be evicted when
+ * their tenant is closed, see {@link TenantRegistry#addCloseListener}. Without an active tenant the cache is
+ * bypassed, values are always loaded and nothing is cached or invalidated.
+ * <p>
+ * Loading a value is atomic with invalidating its key, so an invalidation waits for a running load and removes its
+ * result. Changes should therefore be invalidated after their commit, see {@link AfterCommit}. Entries expire after the
+ * time to live regardless, which bounds the staleness of changes made behind the back of the cache.
+ *
+ * @param <K> type of keys.
+ * @param <V> type of values.
+ */
+public class TenantCache<K, V> {
+
+    private final Map<String, Cache<K, V>> regions = new ConcurrentHashMap<>();
+    private final long budget;
+    private final long timeToLive;
+    private final Weigher<K, V> weigher;
+
+    /**
+     * @param budget maximum estimated size of a region in bytes, 0 disables caching.
+     * @param timeToLive of entries in ms.
+     * @param weigher estimating size of an entry in bytes.
+     */
+    public TenantCache(long budget, long timeToLive, Weigher<K, V> weigher) {
+        this.budget = budget;
+        this.timeToLive = timeToLive;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Gets value from the region of the active tenant, loading and caching it on a miss. Empty results are not
+     * cached.
+     *
+     * @param key of value.
+     * @param loader loading value of the active tenant.
+     * @return cached or loaded value.
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        String identifier = DatabaseConfig.DBContextHolder.getContext();
+        if (budget <= 0 || identifier == null) return loader.apply(key);
+
+        return Optional.ofNullable(region(identifier).get(key, missing -> loader.apply(missing).orElse(null)));
+    }
+
+    /**
+     * Gets value from the region of the active tenant without loading it.
+     *
+     * @param key of value.
+     * @return cached value, empty on a miss.
+     */
+    public Optional<V> getIfPresent(K key) {
+        Cache<K, V> region = activeRegion();
+        return region == null ? Optional.empty() : Optional.ofNullable(region.getIfPresent(key));
+    }
+
+    /**
+     * Removes value from the region of the active tenant.
+     *
+     * @param key of value.
+     */
+    public void invalidate(K key) {
+        Cache<K, V> region = activeRegion();
+        if (region != null) region.invalidate(key);
+    }
+
+    /**
+     * Drops region of a tenant with all its entries.
+     *
+     * @param identifier hashed identifier of tenant.
+     */
+    public void evictRegion(String identifier) {
+        Cache<K, V> region = regions.remove(identifier);
+        if (region != null) region.invalidateAll();
+    }
+
+    /**
+     * Gets statistics of all regions.
+     *
+     * @return hit and miss counts by hashed tenant identifier.
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new ConcurrentHashMap<>();
+        regions.forEach((identifier, region) -> stats.put(identifier, region.stats()));
+        return stats;
+    }
+
+    private Cache<K, V> activeRegion() {
+        String identifier = DatabaseConfig.DBContextHolder.getContext();
+        return identifier == null ? null : regions.get(identifier);
+    }
+
+    private Cache<K, V> region(String identifier) {
+        return regions.computeIfAbsent(identifier, created -> Caffeine.newBuilder()
+                .maximumWeight(budget)
+                .weigher(weigher)
+                .expireAfterWrite(timeToLive, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build());
+    }
+}
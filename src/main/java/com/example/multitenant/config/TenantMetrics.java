@@ -0,0 +1,219 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.service.MovieService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TenantMetrics: publishes the number of open tenants, the connections of their pools and the hit ratio of their movie
+ * caches. Pools and caches are tagged by tenant only for the hottest tenants, all others are summed up under the
+ * tenant "other", so the number of series stays bounded however many tenants are open. The hottest tenants are
+ * determined again every refresh interval.
+ * <p>
+ * Tenant identifiers are plain hashes of email addresses and could be matched against known addresses, so tenants
+ * are tagged with a hash of their identifier and a salt which is drawn randomly on every start, see
+ * {@link #getTag(String)}.
+ */
+@Component
+public class TenantMetrics implements MeterBinder, DisposableBean {
+
+    private static final String OTHER = "other";
+    private static final long SNAPSHOT_TTL = TimeUnit.SECONDS.toNanos(1);
+    private static final int TAG_LENGTH = 8;
+
+    private final TenantRegistry tenantRegistry;
+    private final MovieService movieService;
+    private final int topTenants;
+    private final byte[] salt = new byte[16];
+    private final ScheduledExecutorService refresher;
+    private final Map<State, MultiGauge> connections = new EnumMap<>(State.class);
+    private MultiGauge cacheHitRatio;
+
+    private volatile Set<String> hottest = Set.of();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public TenantMetrics(TenantRegistry tenantRegistry, MovieService movieService, DatabaseProperties databaseProperties) {
+        this.tenantRegistry = tenantRegistry;
+        this.movieService = movieService;
+        this.topTenants = databaseProperties.getTenantMetricsTopTenants();
+        new SecureRandom().nextBytes(salt);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = databaseProperties.getTenantMetricsRefresh();
+        refresher.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tenant.open", tenantRegistry, TenantRegistry::size)
+                .description("Tenants whose database is currently open")
+                .register(registry);
+        FunctionCounter.builder("tenant.opened", tenantRegistry, TenantRegistry::getOpenCount)
+                .description("Tenant databases which have been opened")
+                .register(registry);
+        FunctionCounter.builder("tenant.evicted", tenantRegistry, TenantRegistry::getEvictionCount)
+                .description("Tenant databases which have been closed for being idle or least recently used")
+                .register(registry);
+
+        for (State state : State.values()) {
+            connections.put(state, MultiGauge.builder("tenant.pool.connections")
+                    .description("Connections of tenant pools, tagged by tenant for the hottest tenants only")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        cacheHitRatio = MultiGauge.builder("tenant.cache.hit.ratio")
+                .description("Hit ratio of movie caches, tagged by tenant for the hottest tenants only")
+                .tag("cache", "movie")
+                .register(registry);
+        refresh();
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Gets tag of a tenant, which is stable until the application is restarted.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @return salted hash of the identifier.
+     */
+    public String getTag(String identifier) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(salt);
+            byte[] hash = messageDigest.digest(identifier.getBytes(StandardCharsets.UTF_8));
+            return DatatypeConverter.printHexBinary(Arrays.copyOf(hash, TAG_LENGTH)).toLowerCase(Locale.ROOT);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Determines the hottest tenants and replaces the tenant tags of the pool gauges.
+     */
+    protected void refresh() {
+        hottest = Set.copyOf(tenantRegistry.hottest(topTenants));
+
+        for (State state : State.values()) {
+            List<MultiGauge.Row<?>> rows = new ArrayList<>(hottest.size() + 1);
+            for (String identifier : hottest) {
+                rows.add(MultiGauge.Row.of(Tags.of("tenant", getTag(identifier)), this,
+                        metrics -> metrics.snapshot().tenant(identifier)[state.ordinal()]));
+            }
+            rows.add(MultiGauge.Row.of(Tags.of("tenant", OTHER), this, metrics -> metrics.snapshot().other[state.ordinal()]));
+
+            MultiGauge gauge = connections.get(state);
+            if (gauge != null) gauge.register(rows, true);
+        }
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(hottest.size() + 1);
+        for (String identifier : hottest) {
+            rows.add(MultiGauge.Row.of(Tags.of("tenant", getTag(identifier)), this, metrics -> ratio(metrics.snapshot().cache(identifier))));
+        }
+        rows.add(MultiGauge.Row.of(Tags.of("tenant", OTHER), this, metrics -> ratio(metrics.snapshot().otherCache)));
+        if (cacheHitRatio != null) cacheHitRatio.register(rows, true);
+    }
+
+    /**
+     * Gets connections of all open pools. Gauges are read one after the other on every scrape, so the pools are
+     * read at most once per second and the result is shared by all gauges.
+     *
+     * @return recent connections of the hottest tenants and the sum of all others.
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.taken < SNAPSHOT_TTL) return current;
+
+        Set<String> tenants = hottest;
+        Map<String, long[]> hot = new HashMap<>();
+        long[] other = new long[State.values().length];
+        tenantRegistry.forEachOpen((identifier, dataSource) -> {
+            if (!(dataSource instanceof HikariDataSource)) return;
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if (pool == null) return;
+
+            long[] values = tenants.contains(identifier) ? hot.computeIfAbsent(identifier, key -> new long[State.values().length]) : other;
+            values[State.ACTIVE.ordinal()] += pool.getActiveConnections();
+            values[State.IDLE.ordinal()] += pool.getIdleConnections();
+            values[State.PENDING.ordinal()] += pool.getThreadsAwaitingConnection();
+        });
+
+        Map<String, long[]> hotCache = new HashMap<>();
+        long[] otherCache = new long[2];
+        movieService.getCacheStats().forEach((identifier, stats) -> {
+            long[] values = tenants.contains(identifier) ? hotCache.computeIfAbsent(identifier, key -> new long[2]) : otherCache;
+            values[0] += stats.hitCount();
+            values[1] += stats.missCount();
+        });
+
+        snapshot = current = new Snapshot(hot, other, hotCache, otherCache, System.nanoTime());
+        return current;
+    }
+
+    /**
+     * Gets hit ratio of cache counts.
+     *
+     * @param counts hits and misses.
+     * @return share of hits, NaN without any request.
+     */
+    private static double ratio(long[] counts) {
+        long requests = counts[0] + counts[1];
+        return requests == 0 ? Double.NaN : (double) counts[0] / requests;
+    }
+
+    private enum State { ACTIVE, IDLE, PENDING }
+
+    /**
+     * Snapshot: connections by state and cache hits and misses of the hottest tenants and of all others.
+     */
+    private static final class Snapshot {
+
+        private static final long[] NONE = new long[State.values().length];
+        private static final long[] NO_REQUESTS = new long[2];
+
+        private final Map<String, long[]> hot;
+        private final long[] other;
+        private final Map<String, long[]> hotCache;
+        private final long[] otherCache;
+        private final long taken;
+
+        private Snapshot(Map<String, long[]> hot, long[] other, Map<String, long[]> hotCache, long[] otherCache, long taken) {
+            this.hot = hot;
+            this.other = other;
+            this.hotCache = hotCache;
+            this.otherCache = otherCache;
+            this.taken = taken;
+        }
+
+        private long[] tenant(String identifier) {
+            return hot.getOrDefault(identifier, NONE);
+        }
+
+        private long[] cache(String identifier) {
+            return hotCache.getOrDefault(identifier, NO_REQUESTS);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.exceptionhandler.exceptions.MigrationException;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TenantMigrator: brings the schema of tenants up to date. Every tenant keeps its applied migrations in a version
+ * table; version 1 is the schema of {@code create.sql}, which is frozen, so new and existing tenants end up with the
+ * same schema. Changes of the schema only go into further migrations, sql scripts named
+ * {@code V<version>__<description>.sql} which are applied in order of their version.
+ * <p>
+ * H2 commits DDL statements implicitly, so a migration which fails halfway keeps the statements executed before the
+ * failure. Migrations therefore have to be idempotent, e.g. {@code CREATE ... IF NOT EXISTS}, so they can simply be
+ * run again.
+ */
+@Component
+public class TenantMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final int BASELINE_VERSION = 1;
+    private static final String VERSION_TABLE = "schema_version";
+
+    private final List<Migration> migrations;
+    private final int latestVersion;
+    private volatile Progress progress;
+
+    @Autowired
+    public TenantMigrator(ResourcePatternResolver resourceResolver, DatabaseProperties databaseProperties) throws IOException {
+        this(resourceResolver, databaseProperties.getTenantMigrationLocation());
+    }
+
+    /**
+     * Loads migrations from the given location.
+     *
+     * @param resourceResolver to resolve migration scripts.
+     * @param location pattern of migration scripts, e.g. {@code classpath*:db/tenant/*.sql}.
+     * @throws IOException if the location can't be read.
+     */
+    public TenantMigrator(ResourcePatternResolver resourceResolver, String location) throws IOException {
+        List<Migration> loaded = new ArrayList<>();
+        for (Resource resource : resourceResolver.getResources(location)) {
+            Matcher matcher = MIGRATION_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (!matcher.matches()) throw new IllegalStateException("Invalid migration name: " + resource.getFilename());
+
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= BASELINE_VERSION) throw new IllegalStateException("Migration must follow baseline: " + resource.getFilename());
+
+            loaded.add(new Migration(version, matcher.group(2).replace('_', ' '), resource));
+        }
+
+        loaded.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < loaded.size(); i++) {
+            if (loaded.get(i).getVersion() == loaded.get(i - 1).getVersion())
+                throw new IllegalStateException("Duplicate migration version " + loaded.get(i).getVersion());
+        }
+
+        migrations = Collections.unmodifiableList(loaded);
+        latestVersion = loaded.isEmpty() ? BASELINE_VERSION : loaded.get(loaded.size() - 1).getVersion();
+    }
+
+    public int getLatestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Gets progress of the latest run of {@link #migrateAll(Collection, Consumer, int)}.
+     *
+     * @return progress or null if no run has been started.
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Applies pending migrations to a tenant. The entry of a migration in the version table is only written once all
+     * its statements have succeeded, so a failed migration leaves the tenant at the last successful version and is run
+     * again as a whole next time. Its DDL statements which succeeded are not rolled back though.
+     *
+     * @param identifier hashed identifier of tenant, used for logging.
+     * @param dataSource of the tenant.
+     * @return number of applied migrations.
+     * @throws MigrationException if a migration fails.
+     */
+    public int migrate(String identifier, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return migrate(identifier, connection);
+        } catch (SQLException e) {
+            throw new MigrationException("Could not migrate tenant " + identifier, e);
+        }
+    }
+
+    /**
+     * Applies pending migrations to a tenant using an already open connection.
+     *
+     * @param identifier hashed identifier of tenant, used for logging.
+     * @param connection to the database of the tenant.
+     * @return number of applied migrations.
+     * @throws MigrationException if a migration fails.
+     */
+    public int migrate(String identifier, Connection connection) {
+        int version = currentVersion(connection);
+        if (version >= latestVersion) return 0;
+
+        int applied = 0;
+        boolean autoCommit = getAutoCommit(connection);
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= version) continue;
+
+            try {
+                connection.setAutoCommit(false);
+                new ResourceDatabasePopulator(migration.getScript()).populate(connection);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO " + VERSION_TABLE + " (version, description, installed_on) VALUES (?, ?, ?)")) {
+                    statement.setInt(1, migration.getVersion());
+                    statement.setString(2, migration.getDescription());
+                    statement.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                applied++;
+                LOGGER.info("Migrated tenant {} to version {} ({})", identifier, migration.getVersion(), migration.getDescription());
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection);
+                throw new MigrationException("Migration " + migration.getVersion() + " failed for tenant " + identifier, e);
+            } finally {
+                setAutoCommit(connection, autoCommit);
+            }
+        }
+
+        return applied;
+    }
+
+    /**
+     * Migrates many tenants in parallel.
+     *
+     * @param identifiers hashed identifiers of tenants to migrate.
+     * @param migration migrates a single tenant, throws if that fails.
+     * @param parallelism maximum number of tenants migrated at the same time.
+     * @return progress which is complete once the method returns.
+     */
+    public Progress migrateAll(Collection<String> identifiers, Consumer<String> migration, int parallelism) {
+        Progress progress = new Progress(identifiers.size());
+        this.progress = progress;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(parallelism, 1), runnable -> {
+            Thread thread = new Thread(runnable, "tenant-migrator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (String identifier : identifiers) {
+                executor.execute(() -> {
+                    try {
+                        migration.accept(identifier);
+                        progress.succeeded();
+                    } catch (RuntimeException e) {
+                        progress.failed(identifier, e);
+                        LOGGER.error("Could not migrate tenant {}: {}", identifier, e.getMessage());
+                    }
+                });
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.info("Migrated {} of {} tenants, {} failed", progress.getCompleted(), progress.getTotal(),
+                        progress.getFailures().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        LOGGER.info("Migrated {} of {} tenants to version {}, {} failed", progress.getCompleted(), progress.getTotal(),
+                latestVersion, progress.getFailures().size());
+        return progress;
+    }
+
+    /**
+     * Reads current schema version of a tenant. Tenants without version table are baselined, as they have been
+     * created from {@code create.sql}.
+     *
+     * @param connection to the database of the tenant.
+     * @return current version.
+     */
+    private int currentVersion(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (version INT PRIMARY KEY, " +
+                    "description VARCHAR(255) NOT NULL, installed_on TIMESTAMP NOT NULL)");
+            statement.execute("INSERT INTO " + VERSION_TABLE + " (version, description, installed_on) " +
+                    "SELECT " + BASELINE_VERSION + ", 'baseline', CURRENT_TIMESTAMP FROM DUAL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + VERSION_TABLE + ")");
+
+            try (ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new MigrationException("Could not read schema version", e);
+        }
+    }
+
+    private boolean getAutoCommit(Connection connection) {
+        try {
+            return connection.getAutoCommit();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void setAutoCommit(Connection connection, boolean autoCommit) {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            LOGGER.warn("Could not restore auto commit: {}", e.getMessage());
+        }
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            LOGGER.warn("Could not roll back migration: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Migration: single versioned sql script.
+     */
+    @Getter
+    private static final class Migration {
+
+        private final int version;
+        private final String description;
+        private final Resource script;
+
+        private Migration(int version, String description, Resource script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+        }
+    }
+
+    /**
+     * Progress: outcome of migrating many tenants. Failures are kept per tenant.
+     */
+    public static final class Progress {
+
+        private final int total;
+        private final LongAdder completed = new LongAdder();
+        private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+        private Progress(int total) {
+            this.total = total;
+        }
+
+        private void succeeded() {
+            completed.increment();
+        }
+
+        private void failed(String identifier, Exception e) {
+            failures.put(identifier, e.getMessage());
+            completed.increment();
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        public Map<String, String> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+    }
+}
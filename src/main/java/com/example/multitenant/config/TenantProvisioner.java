@@ -0,0 +1,157 @@
+package com.example.multitenant.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * TenantProvisioner: creates database files of new tenants from a pre-built template instead of running the schema
+ * script against every new tenant. A small pool of spare copies is kept ready, so provisioning a tenant usually is a
+ * single rename. If no spare is left the template is copied directly.
+ */
+public class TenantProvisioner implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    public static final String EXTENSION = ".mv.db";
+    private static final String TEMPLATE = "template";
+    private static final String SPARE_PREFIX = "spare-";
+
+    private final Path directory;
+    private final Path template;
+    private final int spareCount;
+    private final Queue<Path> spares = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService refiller;
+
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder copies = new LongAdder();
+
+    /**
+     * Builds the template and starts filling the pool of spare files. Leftovers of a previous run are removed, as
+     * they may have been built from an outdated schema.
+     *
+     * @param directory which holds the template and the spare files.
+     * @param spareCount number of spare files to keep ready, 0 disables the pool.
+     * @param templateBuilder creates a compacted database at the given path, which lacks the file extension.
+     * @throws IOException if the directory can't be prepared.
+     */
+    public TenantProvisioner(Path directory, int spareCount, Consumer<Path> templateBuilder) throws IOException {
+        this.directory = directory;
+        this.template = directory.resolve(TEMPLATE + EXTENSION);
+        this.spareCount = spareCount;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+        }
+
+        templateBuilder.accept(directory.resolve(TEMPLATE));
+        if (Files.notExists(template)) throw new IllegalStateException("Template has not been built: " + template);
+
+        refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-provisioner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refill();
+    }
+
+    /**
+     * Creates database file of a new tenant. A spare file is claimed by renaming it to the target, which either
+     * fully succeeds or leaves the spare untouched, so a spare can never be handed out twice.
+     *
+     * @param target database file of the new tenant.
+     * @throws IOException if neither a spare could be claimed nor the template could be copied.
+     */
+    public void provision(Path target) throws IOException {
+        Path spare;
+        while ((spare = spares.poll()) != null) {
+            try {
+                Files.move(spare, target, StandardCopyOption.ATOMIC_MOVE);
+                claims.increment();
+                refill();
+                return;
+            } catch (NoSuchFileException e) {
+                LOGGER.warn("Spare tenant file {} has vanished", spare);
+            }
+        }
+
+        copyTemplate(target);
+        copies.increment();
+        refill();
+    }
+
+    public int getSpareCount() {
+        return spares.size();
+    }
+
+    public long getClaimCount() {
+        return claims.sum();
+    }
+
+    public long getCopyCount() {
+        return copies.sum();
+    }
+
+    @Override
+    public void close() {
+        refiller.shutdownNow();
+    }
+
+    /**
+     * Copies the template next to the target first and renames it afterwards, so a partially written file is never
+     * visible under the name of a tenant.
+     *
+     * @param target file to create.
+     * @throws IOException if copying fails.
+     */
+    private void copyTemplate(Path target) throws IOException {
+        Path copy = Files.createTempFile(directory, "copy-", ".tmp");
+        try {
+            Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Tops up the pool of spare files in the background unless a refill is already running.
+     */
+    private void refill() {
+        if (spareCount <= 0 || spares.size() >= spareCount || !refilling.compareAndSet(false, true)) return;
+
+        refiller.execute(() -> {
+            boolean failed = false;
+            try {
+                while (spares.size() < spareCount && !Thread.currentThread().isInterrupted()) {
+                    Path spare = directory.resolve(SPARE_PREFIX + sequence.incrementAndGet() + EXTENSION);
+                    copyTemplate(spare);
+                    spares.add(spare);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not refill spare tenant files: {}", e.getMessage());
+                failed = true;
+            } finally {
+                refilling.set(false);
+            }
+
+            // spares claimed after the last check of the loop found the flag still set and started no refill
+            if (!failed && !Thread.currentThread().isInterrupted()) refill();
+        });
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.multitenant.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandles;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * TenantRegistry: bounded registry of open tenant data sources.
+ * <p>
+ * Tenants are opened on first access and closed again once the registry exceeds its capacity (least recently used
+ * first) or once they have been idle for longer than the configured idle timeout. A closed tenant is reopened
+ * transparently on its next access. Tenants exceeding the capacity are closed in the background, all at once, so
+ * requests never scan the registry and it may exceed its capacity briefly.
+ */
+public class TenantRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final Function<String, DataSource> opener;
+    private final BiConsumer<String, DataSource> closer;
+    private final int maxOpen;
+    private final long idleTimeout;
+    private final ScheduledExecutorService sweeper;
+    private final List<Consumer<String>> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder opens = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final AtomicInteger reservations = new AtomicInteger();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Creates registry.
+     *
+     * @param maxOpen maximum number of tenants which are open at the same time.
+     * @param idleTimeout time in milliseconds after which an unused tenant is closed, disabled if not positive.
+     * @param opener creates the data source of the given tenant identifier.
+     * @param closer releases the data source of the given tenant identifier.
+     */
+    public TenantRegistry(int maxOpen, long idleTimeout, Function<String, DataSource> opener,
+                          BiConsumer<String, DataSource> closer) {
+        this.maxOpen = maxOpen;
+        this.idleTimeout = idleTimeout;
+        this.opener = opener;
+        this.closer = closer;
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-registry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (idleTimeout > 0) {
+            long period = Math.max(idleTimeout / 2, 1);
+            sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets data source of tenant and opens it if necessary.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @return open data source of tenant.
+     */
+    public DataSource get(String identifier) {
+        Tenant tenant = tenants.get(identifier);
+        DataSource dataSource = tenant == null ? null : tenant.acquire();
+        if (dataSource != null) return dataSource;
+
+        do {
+            dataSource = tenants.computeIfAbsent(identifier, Tenant::new).acquire();
+        } while (dataSource == null);
+
+        if (tenants.size() - reservations.get() > maxOpen && evicting.compareAndSet(false, true)) {
+            try {
+                sweeper.execute(() -> evictLeastRecentlyUsed(identifier));
+            } catch (RejectedExecutionException e) {
+                evicting.set(false);
+            }
+        }
+        return dataSource;
+    }
+
+    /**
+     * Runs action on a tenant which isn't open, e.g. maintenance on a short-lived data source of its own. The tenant
+     * is reserved while the action runs, so requests wait for it instead of opening the tenant concurrently, and the
+     * reservation neither counts as access nor towards the capacity of the registry. Open tenants are skipped.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @param action to run while the tenant is closed.
+     * @return true if the action has run, false if the tenant is open.
+     */
+    public boolean runIfClosed(String identifier, Runnable action) {
+        Tenant reservation = new Tenant(identifier, true);
+        synchronized (reservation) {
+            if (tenants.putIfAbsent(identifier, reservation) != null) return false;
+
+            reservations.incrementAndGet();
+            try {
+                action.run();
+                return true;
+            } finally {
+                reservation.closed = true;
+                tenants.remove(identifier, reservation);
+                reservations.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Registers a listener which is notified with the identifier of every tenant after it has been closed, so
+     * state kept per tenant can be released with it.
+     *
+     * @param listener receiving the hashed identifier of the closed tenant.
+     */
+    public void addCloseListener(Consumer<String> listener) {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * Gets open tenants which have served the most requests since they have been opened.
+     *
+     * @param limit maximum number of identifiers.
+     * @return identifiers ordered from hottest to coldest.
+     */
+    public List<String> hottest(int limit) {
+        return tenants.values().stream()
+                .sorted(Comparator.comparingLong((Tenant tenant) -> tenant.requests.sum()).reversed())
+                .limit(limit)
+                .map(tenant -> tenant.identifier)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if tenant is currently open.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @return true if the tenant is registered.
+     */
+    public boolean contains(String identifier) {
+        return tenants.containsKey(identifier);
+    }
+
+    /**
+     * Closes data source of tenant. The tenant is reopened on its next access. A tenant reserved by
+     * {@link #runIfClosed} isn't open and stays reserved until its action is done.
+     *
+     * @param identifier hashed identifier of tenant.
+     */
+    public void evict(String identifier) {
+        Tenant tenant = tenants.get(identifier);
+        if (tenant != null && !tenant.reservation && tenants.remove(identifier, tenant)) tenant.close();
+    }
+
+    /**
+     * Visits all tenants whose data source is open, without counting it as access.
+     *
+     * @param visitor receiving the hashed identifier and data source of each tenant.
+     */
+    public void forEachOpen(BiConsumer<String, DataSource> visitor) {
+        tenants.forEach((identifier, tenant) -> {
+            DataSource current = tenant.dataSource;
+            if (current != null) visitor.accept(identifier, current);
+        });
+    }
+
+    /**
+     * Gets identifiers of all open tenants.
+     *
+     * @return a read-only view on the identifiers.
+     */
+    public Set<String> identifiers() {
+        return Set.copyOf(tenants.keySet());
+    }
+
+    public int size() {
+        return tenants.size();
+    }
+
+    public long getOpenCount() {
+        return opens.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Closes all tenants and stops evicting idle ones.
+     */
+    public void close() {
+        sweeper.shutdownNow();
+        tenants.keySet().forEach(this::evict);
+    }
+
+    /**
+     * Closes all tenants which have not been accessed within the idle timeout.
+     */
+    protected void evictIdle() {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        tenants.forEach((identifier, tenant) -> {
+            if (tenant.lastAccess - threshold < 0 && !tenant.isBusy() && tenants.remove(identifier, tenant)) {
+                LOGGER.debug("Closing idle tenant {}", identifier);
+                evictions.increment();
+                tenant.close();
+            }
+        });
+    }
+
+    /**
+     * Closes least recently used tenants until the registry is within its capacity again. Runs on the sweeper and
+     * closes all tenants exceeding the capacity in a single pass, which orders the tenants by a snapshot of their last
+     * access. Passes are repeated while tenants opened meanwhile exceed the capacity and can be closed.
+     *
+     * @param requested identifier of the tenant whose request has triggered the eviction and must stay open.
+     */
+    private void evictLeastRecentlyUsed(String requested) {
+        int evicted;
+        do {
+            try {
+                evicted = evictExcess(requested);
+            } finally {
+                evicting.set(false);
+            }
+        } while (evicted > 0 && tenants.size() - reservations.get() > maxOpen && evicting.compareAndSet(false, true));
+    }
+
+    private int evictExcess(String requested) {
+        long excess = tenants.size() - reservations.get() - maxOpen;
+        if (excess <= 0) return 0;
+
+        long now = System.nanoTime();
+        List<Map.Entry<Long, Tenant>> candidates = tenants.values().stream()
+                .filter(tenant -> !tenant.identifier.equals(requested) && !tenant.isBusy())
+                .map(tenant -> Map.entry(tenant.lastAccess - now, tenant))
+                .sorted(Map.Entry.comparingByKey())
+                .limit(excess)
+                .collect(Collectors.toList());
+
+        int evicted = 0;
+        for (Map.Entry<Long, Tenant> candidate : candidates) {
+            Tenant tenant = candidate.getValue();
+            if (tenants.remove(tenant.identifier, tenant)) {
+                LOGGER.debug("Closing least recently used tenant {}", tenant.identifier);
+                evictions.increment();
+                evicted++;
+                tenant.close();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Tenant: lazily opened data source of a single tenant, or a reservation of a closed tenant which is never opened.
+     */
+    private final class Tenant {
+
+        private final String identifier;
+        private final boolean reservation;
+        private volatile DataSource dataSource;
+        private volatile long lastAccess = System.nanoTime();
+        private final LongAdder requests = new LongAdder();
+        private boolean closed;
+
+        private Tenant(String identifier) {
+            this(identifier, false);
+        }
+
+        private Tenant(String identifier, boolean reservation) {
+            this.identifier = identifier;
+            this.reservation = reservation;
+        }
+
+        /**
+         * Gets data source and opens it on first access.
+         *
+         * @return data source or null if the tenant has been closed in the meantime.
+         */
+        private DataSource acquire() {
+            lastAccess = System.nanoTime();
+            requests.increment();
+
+            DataSource current = dataSource;
+            if (current != null) {
+                hits.increment();
+                return current;
+            }
+
+            synchronized (this) {
+                if (closed) return null;
+                if (dataSource == null) {
+                    try {
+                        dataSource = opener.apply(identifier);
+                    } catch (RuntimeException e) {
+                        closed = true;
+                        tenants.remove(identifier, this);
+                        throw e;
+                    }
+                    opens.increment();
+                } else {
+                    hits.increment();
+                }
+                return dataSource;
+            }
+        }
+
+        /**
+         * Checks if connections of this tenant are currently in use.
+         *
+         * @return true if the tenant is being opened or has active connections.
+         */
+        private boolean isBusy() {
+            DataSource current = dataSource;
+            if (current == null) return true;
+            if (!(current instanceof HikariDataSource)) return false;
+
+            HikariPoolMXBean pool = ((HikariDataSource) current).getHikariPoolMXBean();
+            return pool != null && pool.getActiveConnections() > 0;
+        }
+
+        private void close() {
+            DataSource current;
+            synchronized (this) {
+                closed = true;
+                current = dataSource;
+                dataSource = null;
+            }
+
+            if (current != null) closer.accept(identifier, current);
+            for (Consumer<String> listener : closeListeners) listener.accept(identifier);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.multitenant.config;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TenantSequenceGenerator: pooled identifier generator which allocates blocks of ids from a sequence of the active
+ * tenant. A single round trip to the sequence reserves {@code increment_size} ids, which allows Hibernate to batch
+ * inserts. Blocks are kept per tenant, as all tenants share one entity manager factory and therefore one generator.
+ * The sequence must be created with the same increment, see {@code db/tenant/V2__movie_id_sequence.sql}. Generating
+ * an id without an active tenant fails, as there is no sequence to take it from.
+ */
+public class TenantSequenceGenerator implements IdentifierGenerator, Configurable {
+
+    private static final Map<String, Block> BLOCKS = new ConcurrentHashMap<>();
+
+    private String sequenceName;
+    private int incrementSize;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        sequenceName = ConfigurationHelper.getString("sequence_name", params);
+        incrementSize = ConfigurationHelper.getInt("increment_size", params, 50);
+        if (sequenceName == null) throw new MappingException("Parameter sequence_name is required");
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        String tenant = DatabaseConfig.DBContextHolder.getContext();
+        if (tenant == null) throw new IdentifierGenerationException("No active tenant to get next value of " + sequenceName);
+        Block block = BLOCKS.computeIfAbsent(tenant + "/" + sequenceName, key -> new Block());
+
+        synchronized (block) {
+            if (block.next >= block.end) {
+                block.next = nextValue(session);
+                block.end = block.next + incrementSize;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Discards reserved ids of a tenant. Needs to be called whenever the database of a tenant is replaced, e.g.
+     * when it's renamed, as the reserved ids would belong to a different sequence afterwards.
+     *
+     * @param identifier hashed identifier of tenant.
+     */
+    public static void reset(String identifier) {
+        BLOCKS.keySet().removeIf(key -> key.startsWith(identifier + "/"));
+    }
+
+    /**
+     * Reserves the next block of ids.
+     *
+     * @param session of the insert.
+     * @return first id of the block.
+     */
+    private long nextValue(SharedSessionContractImplementor session) {
+        String sql = session.getJdbcServices().getDialect().getSequenceNextValString(sequenceName);
+        JdbcCoordinator coordinator = session.getJdbcCoordinator();
+
+        PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            ResultSet resultSet = coordinator.getResultSetReturn().extract(statement);
+            try {
+                resultSet.next();
+                return resultSet.getLong(1);
+            } finally {
+                coordinator.getLogicalConnection().getResourceRegistry().release(resultSet, statement);
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Could not get next value of " + sequenceName, sql);
+        } finally {
+            coordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            coordinator.afterStatementExecution();
+        }
+    }
+
+    /**
+     * Block: range of reserved ids, {@code next} inclusive and {@code end} exclusive.
+     */
+    private static final class Block {
+
+        private long next;
+        private long end;
+    }
+}
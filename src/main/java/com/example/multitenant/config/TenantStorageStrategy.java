@@ -0,0 +1,45 @@
+package com.example.multitenant.config;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * TenantStorageStrategy: decides where the data of a tenant lives and how it is reached. The strategy is selected by
+ * the property {@code tenant.storage}.
+ */
+public interface TenantStorageStrategy {
+
+    /**
+     * Opens storage of tenant and initializes it if it doesn't exist yet.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @return datasource which connects to the storage of the tenant.
+     */
+    DataSource open(String identifier);
+
+    /**
+     * Releases resources held by the datasource of a tenant.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @param dataSource which has been returned by {@link #open(String)}.
+     */
+    void close(String identifier, DataSource dataSource);
+
+    /**
+     * Moves storage of tenant to a new identifier. The tenant must not be open.
+     *
+     * @param oldIdentifier hashed old identifier.
+     * @param newIdentifier hashed new identifier.
+     * @throws IOException if something goes wrong during moving the storage.
+     * @throws com.example.multitenant.exceptionhandler.exceptions.ConflictException if the new identifier is taken.
+     */
+    void rename(String oldIdentifier, String newIdentifier) throws IOException;
+
+    /**
+     * Lists all existing tenants.
+     *
+     * @return hashed identifiers of tenants.
+     */
+    List<String> list();
+}
@@ -0,0 +1,124 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * TenantWarmer: remembers the hottest tenants on shutdown and opens them again after the next startup, so their
+ * first requests don't have to wait for the database and its pool to be opened. Warm-up runs in the background while
+ * the application already serves requests.
+ */
+@Component
+public class TenantWarmer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String HOT_TENANTS_FILE = "hot-tenants";
+
+    private final DatabaseProperties databaseProperties;
+    private final TenantRegistry tenantRegistry;
+    private final TenantStorageStrategy tenantStorage;
+    private final Path hotTenantsFile;
+
+    @Autowired
+    public TenantWarmer(DatabaseProperties databaseProperties, TenantRegistry tenantRegistry,
+                        TenantStorageStrategy tenantStorage) {
+        this.databaseProperties = databaseProperties;
+        this.tenantRegistry = tenantRegistry;
+        this.tenantStorage = tenantStorage;
+
+        hotTenantsFile = Path.of(databaseProperties.getDirectory(), HOT_TENANTS_FILE);
+    }
+
+    /**
+     * Opens tenants which have been hot before the last shutdown. Tenants which no longer exist are skipped, as
+     * opening them would create them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<String> hotTenants = readHotTenants();
+        if (hotTenants.isEmpty()) return;
+
+        Set<String> existing = new HashSet<>(tenantStorage.list());
+        List<String> identifiers = hotTenants.stream()
+                .filter(existing::contains)
+                .filter(identifier -> !tenantRegistry.contains(identifier))
+                .limit(databaseProperties.getTenantMaxOpen())
+                .collect(Collectors.toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(databaseProperties.getTenantWarmupParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "tenant-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger remaining = new AtomicInteger(identifiers.size());
+        long start = System.nanoTime();
+        for (String identifier : identifiers) {
+            executor.execute(() -> {
+                try {
+                    tenantRegistry.get(identifier);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not warm up tenant {}: {}", identifier, e.getMessage());
+                }
+
+                if (remaining.decrementAndGet() == 0) {
+                    LOGGER.info("Warmed up {} tenants in {} ms", identifiers.size(), (System.nanoTime() - start) / 1_000_000);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Persists the hottest open tenants before they are closed.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void persistHotTenants() {
+        List<String> hotTenants = tenantRegistry.hottest(databaseProperties.getTenantWarmupSize());
+        try {
+            Path temporary = Files.createTempFile(hotTenantsFile.getParent(), HOT_TENANTS_FILE, ".tmp");
+            Files.write(temporary, hotTenants);
+            Files.move(temporary, hotTenantsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not persist hot tenants: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads tenants which have been persisted on the last shutdown.
+     *
+     * @return identifiers ordered from hottest to coldest.
+     */
+    protected List<String> readHotTenants() {
+        if (Files.notExists(hotTenantsFile)) return List.of();
+
+        try {
+            return Files.readAllLines(hotTenantsFile).stream()
+                    .filter(line -> !line.isBlank())
+                    .limit(databaseProperties.getTenantWarmupSize())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.warn("Could not read hot tenants: {}", e.getMessage());
+            return List.of();
+        }
+    }
+}
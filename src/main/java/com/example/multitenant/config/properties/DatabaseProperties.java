@@ -21,16 +21,25 @@ public class DatabaseProperties {
     @Value("${spring.jpa.properties.hibernate.hbm2ddl.auto}")
     private String ddl;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private Integer batchSize;
+
     @Value("${spring.datasource.name}")
     private String directory;
 
     private Database database;
+    private Tenant tenant;
 
     @Autowired
     public void setDatabase(Database database) {
         this.database = database;
     }
 
+    @Autowired
+    public void setTenant(Tenant tenant) {
+        this.tenant = tenant;
+    }
+
     public String getDialect() {
         return dialect;
     }
@@ -39,6 +48,10 @@ public class DatabaseProperties {
         return ddl;
     }
 
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
     public String getDirectory() {
         return directory;
     }
@@ -51,6 +64,44 @@ public class DatabaseProperties {
 
     public String getPassword() { return database.getUsername(); }
 
+    public Integer getTenantMaxOpen() { return tenant.maxOpen; }
+
+    public Long getTenantIdleTimeout() { return tenant.idleTimeout; }
+
+    public Boolean getTenantLazy() { return tenant.lazy; }
+
+    public String getTenantStorage() { return tenant.storage; }
+
+    public Integer getTenantSchemaPoolSize() { return tenant.schemaPoolSize; }
+
+    public Integer getTenantSparePoolSize() { return tenant.sparePoolSize; }
+
+    public String getTenantMigrationLocation() { return tenant.migrationLocation; }
+
+    public Boolean getTenantMigrationEager() { return tenant.migrationEager; }
+
+    public Integer getTenantMigrationParallelism() { return tenant.migrationParallelism; }
+
+    public Integer getTenantWarmupSize() { return tenant.warmupSize; }
+
+    public Integer getTenantWarmupParallelism() { return tenant.warmupParallelism; }
+
+    public Long getTenantCacheBudget() { return tenant.cacheBudget; }
+
+    public Long getTenantCacheTtl() { return tenant.cacheTtl; }
+
+    public Long getTenantSearchMaxTitles() { return tenant.searchMaxTitles; }
+
+    public Integer getTenantMetricsTopTenants() { return tenant.metricsTopTenants; }
+
+    public Long getTenantMetricsRefresh() { return tenant.metricsRefresh; }
+
+    public Integer getTenantBulkheadMaxInFlight() { return tenant.bulkheadMaxInFlight; }
+
+    public Integer getTenantBulkheadQueueSize() { return tenant.bulkheadQueueSize; }
+
+    public Long getTenantBulkheadQueueTimeout() { return tenant.bulkheadQueueTimeout; }
+
     /**
      * Generates data source.
      *
@@ -77,6 +128,10 @@ public class DatabaseProperties {
     @ConfigurationProperties("spring.datasource")
     protected Database database() { return new Database(); }
 
+    @Bean
+    @ConfigurationProperties("tenant")
+    protected Tenant tenant() { return new Tenant(); }
+
     @Getter @Setter
     protected static final class Database {
 
@@ -85,4 +140,28 @@ public class DatabaseProperties {
         String username;
         String password;
     }
+
+    @Getter @Setter
+    protected static final class Tenant {
+
+        Integer maxOpen;
+        Long idleTimeout;
+        Boolean lazy;
+        String storage;
+        Integer schemaPoolSize;
+        Integer sparePoolSize;
+        String migrationLocation;
+        Boolean migrationEager;
+        Integer migrationParallelism;
+        Integer warmupSize;
+        Integer warmupParallelism;
+        Long cacheBudget;
+        Long cacheTtl;
+        Long searchMaxTitles;
+        Integer metricsTopTenants;
+        Long metricsRefresh;
+        Integer bulkheadMaxInFlight;
+        Integer bulkheadQueueSize;
+        Long bulkheadQueueTimeout;
+    }
 }
@@ -7,13 +7,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Configuration
 public class SecurityProperties {
 
     private Auth auth;
     private Jwt jwt;
+    private Timing timing;
+    private Rate rate;
 
     @Autowired
     public void setAuth(Auth auth) {
@@ -25,6 +30,16 @@ public class SecurityProperties {
         this.jwt = jwt;
     }
 
+    @Autowired
+    public void setTiming(Timing timing) {
+        this.timing = timing;
+    }
+
+    @Autowired
+    public void setRate(Rate rate) {
+        this.rate = rate;
+    }
+
     public String getAuthHeader() {
         return auth.header;
     }
@@ -41,6 +56,14 @@ public class SecurityProperties {
         return auth.whitelist;
     }
 
+    public Long getUserCacheSize() {
+        return auth.userCacheSize;
+    }
+
+    public Long getUserCacheStaleness() {
+        return auth.userCacheStaleness;
+    }
+
     public String getJwtSecret() {
         return jwt.secret;
     }
@@ -61,6 +84,42 @@ public class SecurityProperties {
         return jwt.expirationTime;
     }
 
+    public Long getJwtCacheSize() {
+        return jwt.cacheSize;
+    }
+
+    public String getTimingHeader() {
+        return timing.header;
+    }
+
+    public Double getTimingSampleRate() {
+        return timing.sampleRate;
+    }
+
+    public String getRateDefaultTier() {
+        return rate.defaultTier;
+    }
+
+    public Set<String> getRateTiers() {
+        return rate.tiers.keySet();
+    }
+
+    public Double getRateRequestsPerSecond(String tier) {
+        return rate.tiers.get(tier).requestsPerSecond;
+    }
+
+    public Integer getRateBurst(String tier) {
+        return rate.tiers.get(tier).burst;
+    }
+
+    public String getRateTier(String tenant) {
+        return rate.tenants.getOrDefault(tenant, rate.defaultTier);
+    }
+
+    public Long getRateMaxTenants() {
+        return rate.maxTenants;
+    }
+
     @Bean
     @ConfigurationProperties("security.auth")
     protected Auth auth() { return new Auth(); }
@@ -69,6 +128,14 @@ public class SecurityProperties {
     @ConfigurationProperties("security.jwt")
     protected Jwt jwt() { return new Jwt(); }
 
+    @Bean
+    @ConfigurationProperties("security.timing")
+    protected Timing timing() { return new Timing(); }
+
+    @Bean
+    @ConfigurationProperties("security.rate")
+    protected Rate rate() { return new Rate(); }
+
     @Getter @Setter
     protected static class Auth {
 
@@ -76,6 +143,8 @@ public class SecurityProperties {
         private String prefix;
         private String loginUri;
         private List<String> whitelist;
+        private Long userCacheSize;
+        private Long userCacheStaleness;
     }
 
     @Getter @Setter
@@ -86,5 +155,29 @@ public class SecurityProperties {
         private String issuer;
         private String audience;
         private Long expirationTime;
+        private Long cacheSize;
+    }
+
+    @Getter @Setter
+    protected static class Timing {
+
+        private String header;
+        private Double sampleRate;
+    }
+
+    @Getter @Setter
+    protected static class Rate {
+
+        private String defaultTier;
+        private Map<String, Tier> tiers = new HashMap<>();
+        private Map<String, String> tenants = new HashMap<>();
+        private Long maxTenants;
+    }
+
+    @Getter @Setter
+    protected static class Tier {
+
+        private Double requestsPerSecond;
+        private Integer burst;
     }
 }
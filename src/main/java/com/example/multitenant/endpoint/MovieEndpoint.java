@@ -1,44 +1,217 @@
 package com.example.multitenant.endpoint;
 
+import com.example.multitenant.config.DatabaseConfig;
 import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieImportReportDto;
+import com.example.multitenant.endpoint.dto.MoviePageDto;
+import com.example.multitenant.endpoint.dto.MovieSearchResultDto;
+import com.example.multitenant.endpoint.dto.MovieSort;
 import com.example.multitenant.endpoint.mapper.MovieMapper;
+import com.example.multitenant.exceptionhandler.exceptions.UnavailableException;
+import com.example.multitenant.exceptionhandler.exceptions.ValidationException;
+import com.example.multitenant.service.MovieImportService;
+import com.example.multitenant.service.MovieSearchService;
 import com.example.multitenant.service.MovieService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("api/v1/movie")
 public class MovieEndpoint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
 
     private final MovieMapper movieMapper;
     private final MovieService movieService;
+    private final MovieImportService movieImportService;
+    private final MovieSearchService movieSearchService;
+    private final ObjectWriter exportWriter;
 
     @Autowired
-    public MovieEndpoint(MovieMapper movieMapper, MovieService movieService) {
+    public MovieEndpoint(MovieMapper movieMapper, MovieService movieService, MovieImportService movieImportService,
+                         MovieSearchService movieSearchService, ObjectMapper objectMapper) {
         this.movieMapper = movieMapper;
         this.movieService = movieService;
+        this.movieImportService = movieImportService;
+        this.movieSearchService = movieSearchService;
+
+        exportWriter = objectMapper.writerFor(MovieDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
     }
 
     /**
-     * Finds movie with given id.
+     * Finds movie with given id. The response carries the version of the movie as strong ETag. If the client already
+     * has the current version, only the version is looked up and the movie is neither loaded nor serialized.
      *
      * @param id of movie.
-     * @return all details about the movie.
+     * @param request containing the optional If-None-Match header.
+     * @param response varying by tenant.
+     * @return all details about the movie, or not modified without body.
      */
     @GetMapping("/{id}")
-    public MovieDto findById(@PathVariable Long id) {
+    public ResponseEntity<MovieDto> findById(@PathVariable Long id, WebRequest request, HttpServletResponse response) {
         LOGGER.info("GET /api/v1/movie/{}", id);
-        return movieMapper.movieToMovieDto(movieService.findById(id));
+        varyByTenant(response);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(eTag(id, movieService.findVersion(id)))) return null;
+
+        MovieDto movie = movieService.findDtoById(id);
+        return ResponseEntity.ok().eTag(eTag(id, movie.getVersion())).body(movie);
+    }
+
+    /**
+     * Lists movies page by page. The continuation token of a page leads to the next one and is only valid for the
+     * same sort order.
+     *
+     * @param sort order of movies.
+     * @param token continuation token of the previous page, omitted for the first page.
+     * @param size maximum number of movies per page.
+     * @param request containing the optional If-None-Match header.
+     * @param response varying by tenant.
+     * @return movies of the page and the token of the next page, which is null on the last page, or not modified
+     * without body if no movie of the page has changed.
+     * @throws ValidationException if the size is out of range or the token is invalid.
+     */
+    @GetMapping
+    public ResponseEntity<MoviePageDto> findPage(@RequestParam(defaultValue = "ID") MovieSort sort,
+                                                 @RequestParam(required = false) String token,
+                                                 @RequestParam(defaultValue = "50") Integer size,
+                                                 WebRequest request, HttpServletResponse response) {
+        LOGGER.info("GET /api/v1/movie?sort={}&size={}", sort, size);
+        varyByTenant(response);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        List<MovieDto> movies = movieService.findPage(sort, token == null ? null : decodeToken(sort, token), size + 1);
+        String next = null;
+        if (movies.size() > size) {
+            movies = movies.subList(0, size);
+            next = encodeToken(sort, movies.get(size - 1));
+        }
+
+        String eTag = eTag(movies, next);
+        if (request.checkNotModified(eTag)) return null;
+        return ResponseEntity.ok().eTag(eTag).body(new MoviePageDto(movies, next));
     }
 
     /**
-     * Saves movie.
+     * Searches movies by title. Every word of the query matches title words starting with it; movies matching more
+     * words come first and exact words rank above prefixes.
+     *
+     * @param q words to search for.
+     * @param page number of the page, starting at 0.
+     * @param size maximum number of movies per page.
+     * @param request containing the optional If-None-Match header.
+     * @param response varying by tenant.
+     * @return ranked movies of the page and the total number of matches, or not modified without body.
+     * @throws ValidationException if page or size is out of range.
+     * @throws UnavailableException if the tenant has more movies than can be indexed.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MovieSearchResultDto> search(@RequestParam String q,
+                                                       @RequestParam(defaultValue = "0") Integer page,
+                                                       @RequestParam(defaultValue = "20") Integer size,
+                                                       WebRequest request, HttpServletResponse response) {
+        LOGGER.info("GET /api/v1/movie/search?q={}&page={}&size={}", q, page, size);
+        varyByTenant(response);
+        if (page < 0) throw new ValidationException("Page must not be negative");
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        MovieSearchResultDto result = movieSearchService.search(q, page, size);
+        String eTag = eTag(result.getMovies(), String.valueOf(result.getTotal()));
+        if (request.checkNotModified(eTag)) return null;
+        return ResponseEntity.ok().eTag(eTag).body(result);
+    }
+
+    /**
+     * Exports all movies as newline delimited json. Movies are written to the response while they are read, so
+     * memory usage doesn't depend on the size of the catalog. The export runs on the request thread, which keeps the
+     * tenant context of the request for the whole stream.
+     *
+     * @param response to write the movies to.
+     * @throws IOException if writing to the response fails.
+     */
+    @GetMapping("/export")
+    public void export(HttpServletResponse response) throws IOException {
+        LOGGER.info("GET /api/v1/movie/export");
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        AtomicBoolean written = new AtomicBoolean();
+        try (SequenceWriter writer = exportWriter.writeValues(response.getOutputStream())) {
+            movieService.export(movie -> {
+                try {
+                    writer.write(movie);
+                    written.set(true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            // lines are separated while writing, the last one is terminated here, an empty catalog has no lines
+            writer.flush();
+            if (written.get()) response.getOutputStream().write('\n');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Imports movies from csv with a header line or from newline delimited json. The request body is parsed while
+     * it is received and rows are committed in chunks, so reading the upload is paced by the database.
+     *
+     * @param request containing the rows as body.
+     * @return numbers of imported and failed rows and the first errors by line.
+     * @throws IOException if reading the request fails.
+     */
+    @PostMapping(value = "/import", consumes = {CSV, NDJSON})
+    public MovieImportReportDto importMovies(HttpServletRequest request) throws IOException {
+        LOGGER.info("POST /api/v1/movie/import ({})", request.getContentType());
+
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        MovieImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? MovieImportService.Format.CSV
+                : MovieImportService.Format.NDJSON;
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+
+        return movieImportService.importMovies(new InputStreamReader(request.getInputStream(), charset), format);
+    }
+
+    /**
+     * Saves movie. Updates carrying a version fail if the movie has been changed since, updates without one overwrite
+     * it.
      *
      * @param movieDto containing details about movie.
      * @return id of saved movie.
@@ -48,4 +221,97 @@ public class MovieEndpoint {
         LOGGER.info("POST /api/v1/movie{}", movieDto);
         return movieService.save(movieMapper.movieDtoToMovie(movieDto));
     }
+
+    /**
+     * Saves many movies at once.
+     *
+     * @param movieDtos containing details about movies.
+     * @return ids of saved movies in the order of the request.
+     */
+    @PostMapping("/batch")
+    public List<Long> saveAll(@RequestBody List<MovieDto> movieDtos) {
+        LOGGER.info("POST /api/v1/movie/batch ({} movies)", movieDtos.size());
+        return movieService.saveAll(movieMapper.movieDtosToMovies(movieDtos));
+    }
+
+    /**
+     * Responses differ by tenant for the same url, so shared caches must key them by the authorization as well.
+     *
+     * @param response to mark.
+     */
+    private void varyByTenant(HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+    }
+
+    /**
+     * Creates strong ETag of a single movie. Ids and versions repeat across tenants, so the tenant is part of it.
+     *
+     * @param id of the movie.
+     * @param version of the movie.
+     * @return quoted digest.
+     */
+    private String eTag(Long id, Long version) {
+        return digest(id + ":" + version);
+    }
+
+    /**
+     * Creates strong ETag of a list of movies. It's derived from ids and versions of the movies instead of the
+     * serialized response, so an unchanged list isn't serialized at all.
+     *
+     * @param movies of the list.
+     * @param suffix further content of the response, e.g. the continuation token.
+     * @return quoted digest.
+     */
+    private String eTag(List<MovieDto> movies, String suffix) {
+        StringBuilder content = new StringBuilder(movies.size() * 16);
+        for (MovieDto movie : movies) content.append(movie.getId()).append(':').append(movie.getVersion()).append(',');
+        content.append(suffix);
+        return digest(content.toString());
+    }
+
+    /**
+     * Digests content of a response together with the active tenant.
+     *
+     * @param content identifying the response within the tenant.
+     * @return quoted digest.
+     */
+    private String digest(String content) {
+        String tenantContent = DatabaseConfig.DBContextHolder.getContext() + "/" + content;
+        return "\"" + DigestUtils.md5DigestAsHex(tenantContent.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Encodes position after a movie into an opaque continuation token.
+     *
+     * @param sort order of movies.
+     * @param last movie of the page.
+     * @return url safe token.
+     */
+    private String encodeToken(MovieSort sort, MovieDto last) {
+        String position = sort == MovieSort.RELEASE_DATE
+                ? sort + ":" + last.getReleaseDate() + ":" + last.getId()
+                : sort + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes continuation token into the last movie of the previous page.
+     *
+     * @param sort order of movies, which has to match the order of the token.
+     * @param token continuation token.
+     * @return movie containing id and, if sorted by it, release date.
+     * @throws ValidationException if the token is invalid.
+     */
+    private MovieDto decodeToken(MovieSort sort, String token) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (MovieSort.valueOf(position[0]) != sort) throw new ValidationException("Token belongs to a different sort order");
+
+            return sort == MovieSort.RELEASE_DATE
+                    ? MovieDto.builder().releaseDate(LocalDate.parse(position[1])).id(Long.parseLong(position[2])).build()
+                    : MovieDto.builder().id(Long.parseLong(position[1])).build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Invalid continuation token");
+        }
+    }
 }
@@ -12,4 +12,5 @@ public class MovieDto {
     private String title;
     private Long runtime;
     private LocalDate releaseDate;
+    private Long version;
 }
@@ -0,0 +1,11 @@
+package com.example.multitenant.endpoint.dto;
+
+import lombok.*;
+
+@Getter @Setter @ToString
+@Builder @AllArgsConstructor @NoArgsConstructor
+public class MovieImportErrorDto {
+
+    private Long line;
+    private String message;
+}
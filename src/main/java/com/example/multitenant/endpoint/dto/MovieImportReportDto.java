@@ -0,0 +1,14 @@
+package com.example.multitenant.endpoint.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter @ToString
+@Builder @AllArgsConstructor @NoArgsConstructor
+public class MovieImportReportDto {
+
+    private Long imported;
+    private Long failed;
+    private List<MovieImportErrorDto> errors;
+}
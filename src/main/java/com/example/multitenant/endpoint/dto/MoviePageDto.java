@@ -0,0 +1,13 @@
+package com.example.multitenant.endpoint.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter @ToString
+@Builder @AllArgsConstructor @NoArgsConstructor
+public class MoviePageDto {
+
+    private List<MovieDto> movies;
+    private String next;
+}
@@ -0,0 +1,11 @@
+package com.example.multitenant.endpoint.dto;
+
+/**
+ * MovieSort: orders in which movies can be listed. Both orders end with the id, so they are unique and can be
+ * continued from the last movie of a page.
+ */
+public enum MovieSort {
+
+    ID,
+    RELEASE_DATE
+}
@@ -4,6 +4,8 @@ import com.example.multitenant.endpoint.dto.MovieDto;
 import com.example.multitenant.entity.Movie;
 import org.mapstruct.Mapper;
 
+import java.util.List;
+
 @Mapper
 public interface MovieMapper {
 
@@ -22,4 +24,12 @@ public interface MovieMapper {
      * @return an entity containing all dto details.
      */
     Movie movieDtoToMovie(MovieDto movieDto);
+
+    /**
+     * Maps movie dtos to movie entities.
+     *
+     * @param movieDtos dtos.
+     * @return entities containing all dto details.
+     */
+    List<Movie> movieDtosToMovies(List<MovieDto> movieDtos);
 }
@@ -1,16 +1,24 @@
 package com.example.multitenant.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity @Data
+@EntityListeners(MovieListener.class)
+@Table(indexes = @Index(name = "idx_movie_release_date", columnList = "releaseDate, id"))
 @Builder @AllArgsConstructor @NoArgsConstructor
 public class Movie {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "movie_seq")
+    @GenericGenerator(name = "movie_seq", strategy = "com.example.multitenant.config.TenantSequenceGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "movie_seq"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
     @Column(nullable = false)
@@ -21,4 +29,8 @@ public class Movie {
 
     @Column(nullable = false)
     private LocalDate releaseDate;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,68 @@
+package com.example.multitenant.entity;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * MovieListener: notifies about movies which have been updated or removed through JPA, including deletes of
+ * repositories, so copies of movies kept outside the persistence context can be invalidated. Listeners run on the
+ * thread of the change and therefore within the context of the changed tenant.
+ */
+public class MovieListener {
+
+    private static final List<Consumer<Movie>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<Movie>> REMOVE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for changes of movies of every tenant. Listeners are called within the transaction of the
+     * change and have to be removed again when their owner is destroyed.
+     *
+     * @param listener receiving the changed movie.
+     */
+    public static void addChangeListener(Consumer<Movie> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a registered listener.
+     *
+     * @param listener to remove.
+     */
+    public static void removeChangeListener(Consumer<Movie> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Registers a listener for removals of movies of every tenant, which are reported to change listeners as well.
+     * Listeners are called within the transaction of the removal and have to be removed again when their owner is
+     * destroyed.
+     *
+     * @param listener receiving the removed movie.
+     */
+    public static void addRemoveListener(Consumer<Movie> listener) {
+        REMOVE_LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a registered removal listener.
+     *
+     * @param listener to remove.
+     */
+    public static void removeRemoveListener(Consumer<Movie> listener) {
+        REMOVE_LISTENERS.remove(listener);
+    }
+
+    @PostUpdate
+    public void updated(Movie movie) {
+        for (Consumer<Movie> listener : LISTENERS) listener.accept(movie);
+    }
+
+    @PostRemove
+    public void removed(Movie movie) {
+        updated(movie);
+        for (Consumer<Movie> listener : REMOVE_LISTENERS) listener.accept(movie);
+    }
+}
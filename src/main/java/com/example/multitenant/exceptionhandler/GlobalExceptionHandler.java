@@ -1,6 +1,8 @@
 package com.example.multitenant.exceptionhandler;
 
+import com.example.multitenant.exceptionhandler.exceptions.ConflictException;
 import com.example.multitenant.exceptionhandler.exceptions.NotFoundException;
+import com.example.multitenant.exceptionhandler.exceptions.UnavailableException;
 import com.example.multitenant.exceptionhandler.exceptions.ValidationException;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -9,6 +11,7 @@ import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,6 +39,25 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
     }
 
+    @ExceptionHandler(value = {ObjectOptimisticLockingFailureException.class})
+    protected ResponseEntity<Object> staleVersion(RuntimeException ex, WebRequest request) {
+        LOGGER.warn(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        return handleExceptionInternal(ex, "Entity has been changed since the given version", new HttpHeaders(),
+                HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(value = {ConflictException.class})
+    protected ResponseEntity<Object> conflict(RuntimeException ex, WebRequest request) {
+        LOGGER.warn(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(value = {UnavailableException.class})
+    protected ResponseEntity<Object> unavailable(RuntimeException ex, WebRequest request) {
+        LOGGER.warn(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
     @NotNull
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
@@ -0,0 +1,6 @@
+package com.example.multitenant.exceptionhandler.exceptions;
+
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) { super(message); }
+}
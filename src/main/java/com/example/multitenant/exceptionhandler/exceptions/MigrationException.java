@@ -0,0 +1,6 @@
+package com.example.multitenant.exceptionhandler.exceptions;
+
+public class MigrationException extends RuntimeException {
+
+    public MigrationException(String message, Throwable cause) { super(message, cause); }
+}
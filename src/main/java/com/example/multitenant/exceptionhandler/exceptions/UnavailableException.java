@@ -0,0 +1,6 @@
+package com.example.multitenant.exceptionhandler.exceptions;
+
+public class UnavailableException extends RuntimeException {
+
+    public UnavailableException(String message) { super(message); }
+}
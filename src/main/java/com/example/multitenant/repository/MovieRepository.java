@@ -1,7 +1,85 @@
 package com.example.multitenant.repository;
 
+import com.example.multitenant.endpoint.dto.MovieDto;
 import com.example.multitenant.entity.Movie;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface MovieRepository extends JpaRepository<Movie, Long> {
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MovieRepository extends JpaRepository<Movie, Long>, MovieStreamRepository {
+
+    /**
+     * Finds movies following the given id, ordered by id.
+     *
+     * @param id of the last movie of the previous page.
+     * @param pageable limiting the number of movies, its offset must be 0.
+     * @return dtos of the movies.
+     */
+    @Query("SELECT new com.example.multitenant.endpoint.dto.MovieDto(m.id, m.title, m.runtime, m.releaseDate, m.version) " +
+            "FROM Movie m WHERE m.id > :id ORDER BY m.id")
+    List<MovieDto> findPageById(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Finds movie with given id without loading the entity. Runs in a read-only transaction, so neither snapshots for
+     * dirty checking nor a flush are needed and the connection is marked read-only.
+     *
+     * @param id of movie.
+     * @return dto of the movie, empty if it doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.multitenant.endpoint.dto.MovieDto(m.id, m.title, m.runtime, m.releaseDate, m.version) " +
+            "FROM Movie m WHERE m.id = :id")
+    Optional<MovieDto> findDtoById(@Param("id") Long id);
+
+    /**
+     * Finds version of a movie without loading it.
+     *
+     * @param id of movie.
+     * @return version of the movie, empty if it doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT m.version FROM Movie m WHERE m.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Finds movies with given ids.
+     *
+     * @param ids of movies.
+     * @return dtos of the movies in no particular order.
+     */
+    @Query("SELECT new com.example.multitenant.endpoint.dto.MovieDto(m.id, m.title, m.runtime, m.releaseDate, m.version) " +
+            "FROM Movie m WHERE m.id IN :ids")
+    List<MovieDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds first movies ordered by release date.
+     *
+     * @param pageable limiting the number of movies, its offset must be 0.
+     * @return dtos of the movies.
+     */
+    @Query("SELECT new com.example.multitenant.endpoint.dto.MovieDto(m.id, m.title, m.runtime, m.releaseDate, m.version) " +
+            "FROM Movie m ORDER BY m.releaseDate, m.id")
+    List<MovieDto> findFirstPageByReleaseDate(Pageable pageable);
+
+    /**
+     * Finds movies following the given movie, ordered by release date. The leading condition on the release date
+     * lets the database seek into the index on release date and id.
+     *
+     * @param releaseDate of the last movie of the previous page.
+     * @param id of the last movie of the previous page.
+     * @param pageable limiting the number of movies, its offset must be 0.
+     * @return dtos of the movies.
+     */
+    @Query("SELECT new com.example.multitenant.endpoint.dto.MovieDto(m.id, m.title, m.runtime, m.releaseDate, m.version) " +
+            "FROM Movie m WHERE m.releaseDate >= :releaseDate AND (m.releaseDate > :releaseDate OR m.id > :id) " +
+            "ORDER BY m.releaseDate, m.id")
+    List<MovieDto> findPageByReleaseDate(@Param("releaseDate") LocalDate releaseDate, @Param("id") Long id,
+                                         Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package com.example.multitenant.repository;
+
+import com.example.multitenant.endpoint.dto.MovieDto;
+
+import java.util.function.Consumer;
+
+public interface MovieStreamRepository {
+
+    /**
+     * Streams all movies ordered by id through a forward-only cursor. Only the rows of the current fetch are held
+     * in memory.
+     *
+     * @param consumer receiving each movie, the dto must not be retained beyond the call.
+     */
+    void streamAll(Consumer<MovieDto> consumer);
+}
@@ -0,0 +1,53 @@
+package com.example.multitenant.repository;
+
+import com.example.multitenant.endpoint.dto.MovieDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * MovieStreamRepositoryImpl: implementation fragment of {@link MovieRepository} which reads movies with plain jdbc.
+ * The statement is forward-only and read-only and uses the fetch size of the {@link JdbcTemplate}
+ * ({@code spring.jdbc.template.fetch-size}). H2 only streams rows with lazy query execution, otherwise it
+ * materializes the whole result before returning the first row, hence it's enabled for the duration of the query.
+ */
+public class MovieStreamRepositoryImpl implements MovieStreamRepository {
+
+    private static final String SELECT_ALL = "SELECT id, title, runtime, releaseDate, version FROM Movie ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MovieStreamRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void streamAll(Consumer<MovieDto> consumer) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement settings = connection.createStatement()) {
+                settings.execute("SET LAZY_QUERY_EXECUTION TRUE");
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_ALL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(jdbcTemplate.getFetchSize());
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            consumer.accept(new MovieDto(resultSet.getLong(1), resultSet.getString(2),
+                                    resultSet.getLong(3), resultSet.getObject(4, LocalDate.class), resultSet.getLong(5)));
+                        }
+                    }
+                } finally {
+                    settings.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+            return null;
+        });
+    }
+}
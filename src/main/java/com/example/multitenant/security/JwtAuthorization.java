@@ -1,11 +1,13 @@
 package com.example.multitenant.security;
 
 import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.FlightRecorderEvents;
 import com.example.multitenant.config.properties.SecurityProperties;
 import com.example.multitenant.service.UserService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,19 +23,27 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 public class JwtAuthorization extends BasicAuthenticationFilter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Timer VERIFY_TIMER = Timer.builder("auth.jwt.verify")
+            .description("Time to verify a token, served from the claims cache for known tokens")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
 
+    private final JwtTokenizer tokenizer;
     private final SecurityProperties securityProperties;
     private final DatabaseConfig databaseConfig;
     private final UserService userService;
 
-    public JwtAuthorization(AuthenticationManager authenticationManager, SecurityProperties securityProperties,
-                            DatabaseConfig databaseConfig, UserService userService) {
+    public JwtAuthorization(AuthenticationManager authenticationManager, JwtTokenizer tokenizer,
+                            SecurityProperties securityProperties, DatabaseConfig databaseConfig,
+                            UserService userService) {
         super(authenticationManager);
+        this.tokenizer = tokenizer;
         this.securityProperties = securityProperties;
         this.databaseConfig = databaseConfig;
         this.userService = userService;
@@ -42,14 +52,23 @@ public class JwtAuthorization extends BasicAuthenticationFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws IOException, ServletException {
+        boolean exposed = request.getHeader(securityProperties.getTimingHeader()) != null;
+        ServerTiming timing = ServerTiming.start(exposed,
+                exposed || ThreadLocalRandom.current().nextDouble() < securityProperties.getTimingSampleRate());
         try {
-            SecurityContextHolder.getContext().setAuthentication(getToken(request));
+            SecurityContextHolder.getContext().setAuthentication(getToken(request, timing));
             chain.doFilter(request, response);
+
+            // endpoints without body, e.g. deletions, commit the response only after the chain
+            String header = timing.takeHeader();
+            if (header != null && !response.isCommitted()) response.addHeader(ServerTiming.HEADER, header);
         } catch (IllegalArgumentException | JwtException e) {
             LOGGER.info("Invalid authorization attempt: {}", e.getMessage());
 
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("Invalid authorization attempt");
+        } finally {
+            timing.finish(request.getMethod(), request.getRequestURI(), response.getStatus());
         }
     }
 
@@ -57,19 +76,24 @@ public class JwtAuthorization extends BasicAuthenticationFilter {
      * Extracts jwt from http request and sets database context.
      *
      * @param request containing valid jwt.
+     * @param timing recording the phases of the request.
      * @return an authentication token with specified authorities.
      */
-    private UsernamePasswordAuthenticationToken getToken(HttpServletRequest request) {
+    private UsernamePasswordAuthenticationToken getToken(HttpServletRequest request, ServerTiming timing) {
         String token = request.getHeader(securityProperties.getAuthHeader());
 
         if (token == null || token.isEmpty() || !token.startsWith(securityProperties.getAuthTokenPrefix())) {
             throw new IllegalArgumentException("Authorization header is malformed or missing");
         }
 
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(securityProperties.getJwtSecret().getBytes()).build()
-                .parseClaimsJws(token.replace(securityProperties.getAuthTokenPrefix(), ""))
-                .getBody();
+        FlightRecorderEvents.JwtVerify event = new FlightRecorderEvents.JwtVerify();
+        event.begin();
+        Claims claims = VERIFY_TIMER.record(() -> tokenizer.parseToken(token.replace(securityProperties.getAuthTokenPrefix(), "")));
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = claims.get("tid", String.class);
+            event.commit();
+        }
 
         List<SimpleGrantedAuthority> authorities = ((List<?>) claims
                 .get("rol")).stream()
@@ -81,15 +105,22 @@ public class JwtAuthorization extends BasicAuthenticationFilter {
         if (username == null || username.isEmpty()) {
             throw new IllegalArgumentException("Token contains no user");
         }
+        timing.lap(ServerTiming.Phase.JWT);
 
         DatabaseConfig.DBContextHolder.setDefault();
-        if (!userService.existsByEmail(username)) throw new JwtException("JWT is no longer valid");
+        if (!userService.isActive(username)) throw new JwtException("JWT is no longer valid");
+        timing.lap(ServerTiming.Phase.USER);
 
         // select active database and set thread context accordingly
         if (request.getRequestURI().startsWith("/api/v1/user/")) {
             DatabaseConfig.DBContextHolder.setDefault();
         } else {
-            databaseConfig.setActiveDatasource(username);
+            // tokens issued before the tenant claim was introduced fall back to hashing the username
+            String identifier = claims.get("tid", String.class);
+            if (identifier == null) identifier = DatabaseConfig.DBContextHolder.generateDataSourceName(username);
+            timing.lap(ServerTiming.Phase.HASH);
+            databaseConfig.setActiveTenant(identifier);
+            timing.lap(ServerTiming.Phase.TENANT);
         }
 
         return new UsernamePasswordAuthenticationToken(username, null, authorities);
@@ -1,27 +1,73 @@
 package com.example.multitenant.security;
 
+import com.example.multitenant.config.DatabaseConfig;
 import com.example.multitenant.config.properties.SecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class JwtTokenizer {
+public class JwtTokenizer implements MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    });
 
     private final SecurityProperties securityProperties;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, Claims> verifiedClaims;
 
     @Autowired
     public JwtTokenizer(SecurityProperties securityProperties) {
         this.securityProperties = securityProperties;
+
+        signingKey = Keys.hmacShaKeyFor(securityProperties.getJwtSecret().getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getJwtCacheSize())
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Publishes size, hits, misses and evictions of the verified claims cache as cache "jwt.claims".
+     *
+     * @param registry to bind the cache metrics to.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedClaims, "jwt.claims");
     }
 
     /**
-     * Creates user specific jwt.
+     * Creates user specific jwt. Besides the username it carries the hashed datasource identifier of the user, so
+     * requests don't need to hash the username again.
      *
      * @param username identifier of user.
      * @param roles user specific permissions.
@@ -29,13 +75,60 @@ public class JwtTokenizer {
      */
     public String createToken(String username, List<String> roles) {
         return securityProperties.getAuthTokenPrefix() + Jwts.builder()
-                .signWith(Keys.hmacShaKeyFor(securityProperties.getJwtSecret().getBytes()), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .setHeaderParam("typ", securityProperties.getJwtType())
                 .setIssuer(securityProperties.getJwtIssuer())
                 .setAudience(securityProperties.getJwtAudience())
                 .setSubject(username)
                 .setExpiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationTime()))
                 .claim("rol", roles)
+                .claim("tid", username == null ? null : DatabaseConfig.DBContextHolder.generateDataSourceName(username))
                 .compact();
     }
+
+    /**
+     * Verifies jwt and extracts its claims. Claims of already verified tokens are served from a cache until the
+     * token expires.
+     *
+     * @param token without prefix.
+     * @return claims of the token.
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired.
+     */
+    public Claims parseToken(String token) {
+        ByteBuffer key = ByteBuffer.wrap(DIGEST.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return verifiedClaims.get(key, ignored -> parser.parseClaimsJws(token).getBody());
+    }
+
+    /**
+     * Gets statistics of the verified claims cache.
+     *
+     * @return hit and miss counts of the cache.
+     */
+    public CacheStats getClaimsCacheStats() {
+        return verifiedClaims.stats();
+    }
+
+    /**
+     * ClaimsExpiry: evicts cached claims as soon as their token expires.
+     */
+    private static class ClaimsExpiry implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) return Long.MAX_VALUE;
+
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(expiration.getTime() - System.currentTimeMillis(), 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package com.example.multitenant.security;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * TenantBulkhead: limits the number of requests a tenant may have in flight, so a single tenant can't occupy all
+ * worker threads. Requests beyond the limit wait in a short queue of the tenant and are rejected with status too many
+ * requests once the queue is full or they have waited for the queue timeout. Requests of the default database, i.e.
+ * user management, are not limited.
+ * <p>
+ * Compartments are kept like open tenants: their number is bounded by {@code tenant.max-open} and a compartment
+ * which hasn't been used for {@code tenant.idle-timeout} is dropped, so a tenant's requests reuse its compartment
+ * and admitting a request takes a single lookup. Permits are released into the compartment they have been taken
+ * from, even if it has been dropped meanwhile.
+ * <p>
+ * Has to run after {@link JwtAuthorization}, which sets the tenant of the request.
+ */
+public class TenantBulkhead extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Counter QUEUE_FULL = rejections("queue-full");
+    private static final Counter QUEUE_TIMEOUT = rejections("queue-timeout");
+
+    private final int maxInFlight;
+    private final int queueSize;
+    private final long queueTimeout;
+    private final Cache<String, Compartment> compartments;
+    private final Function<String, Compartment> compartmentFactory = tenant -> new Compartment();
+
+    public TenantBulkhead(DatabaseProperties databaseProperties) {
+        this.maxInFlight = databaseProperties.getTenantBulkheadMaxInFlight();
+        this.queueSize = databaseProperties.getTenantBulkheadQueueSize();
+        this.queueTimeout = databaseProperties.getTenantBulkheadQueueTimeout();
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(databaseProperties.getTenantMaxOpen());
+        long idleTimeout = databaseProperties.getTenantIdleTimeout();
+        if (idleTimeout > 0) builder.expireAfterAccess(idleTimeout, TimeUnit.MILLISECONDS);
+        compartments = builder.build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String tenant = DatabaseConfig.DBContextHolder.getContext();
+        if (tenant == null || tenant.equals(DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Compartment compartment = compartments.get(tenant, compartmentFactory);
+        if (!compartment.acquire()) {
+            reject(tenant, response);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            compartment.permits.release();
+        }
+    }
+
+    /**
+     * Gets number of requests of a tenant which are in flight.
+     *
+     * @param identifier hashed identifier of tenant.
+     * @return requests holding a permit of the tenant.
+     */
+    public int getInFlight(String identifier) {
+        Compartment compartment = compartments.getIfPresent(identifier);
+        return compartment == null ? 0 : maxInFlight - compartment.permits.availablePermits();
+    }
+
+    private void reject(String tenant, HttpServletResponse response) throws IOException {
+        LOGGER.debug("Rejected request of tenant {}: bulkhead is full", tenant);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.getWriter().write("Too many concurrent requests");
+    }
+
+    private static Counter rejections(String reason) {
+        return Counter.builder("tenant.bulkhead.rejected")
+                .description("Requests rejected because their tenant had too many requests in flight")
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Compartment: in-flight permits and queued requests of one tenant.
+     */
+    private final class Compartment {
+
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        private final AtomicInteger queued = new AtomicInteger();
+
+        /**
+         * Takes a permit right away, or after waiting in the queue if there is room left.
+         *
+         * @return true if a permit has been taken and has to be released.
+         */
+        private boolean acquire() {
+            if (permits.tryAcquire()) return true;
+
+            if (queued.incrementAndGet() > queueSize) {
+                queued.decrementAndGet();
+                QUEUE_FULL.increment();
+                return false;
+            }
+
+            try {
+                if (permits.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS)) return true;
+                QUEUE_TIMEOUT.increment();
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.multitenant.security;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.SecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * TenantRateLimiter: limits the request rate of every tenant by a token bucket of its tier. Buckets are kept as the
+ * theoretical arrival time of the next request (generic cell rate algorithm), so a bucket is a single long which is
+ * updated by compare and set, and admitting a request of a known tenant neither locks nor allocates. Requests
+ * exceeding the rate and burst of their tier are rejected with status too many requests and the seconds until a token
+ * is available again. Requests of the default database, i.e. user management, are not limited.
+ * <p>
+ * Buckets are kept independently of open tenants, so closing a tenant doesn't refill its burst. A bucket which hasn't
+ * been used for the longest refill period of all tiers is full again and is dropped, and the number of buckets is
+ * bounded by {@code security.rate.max-tenants}.
+ * <p>
+ * Has to run after {@link JwtAuthorization}, which sets the tenant of the request.
+ */
+public class TenantRateLimiter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final SecurityProperties securityProperties;
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Limit defaultLimit;
+    private final Cache<String, Bucket> buckets;
+    private final Function<String, Bucket> bucketFactory = this::newBucket;
+
+    public TenantRateLimiter(SecurityProperties securityProperties) {
+        this.securityProperties = securityProperties;
+
+        for (String tier : securityProperties.getRateTiers()) {
+            limits.put(tier, new Limit(tier, securityProperties.getRateRequestsPerSecond(tier), securityProperties.getRateBurst(tier)));
+        }
+        defaultLimit = limits.get(securityProperties.getRateDefaultTier());
+        if (defaultLimit == null) {
+            throw new IllegalStateException("Default rate tier is not configured: " + securityProperties.getRateDefaultTier());
+        }
+
+        long refill = limits.values().stream().mapToLong(limit -> limit.tolerance).max().orElse(0);
+        buckets = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getRateMaxTenants())
+                .expireAfterAccess(Math.max(refill, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String tenant = DatabaseConfig.DBContextHolder.getContext();
+        if (tenant == null || tenant.equals(DatabaseConfig.DBContextHolder.DEFAULT_DATASOURCE)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Bucket bucket = buckets.get(tenant, bucketFactory);
+
+        long wait = bucket.take(System.nanoTime());
+        if (wait > 0) {
+            reject(tenant, bucket.limit, wait, response);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private Bucket newBucket(String tenant) {
+        String tier = securityProperties.getRateTier(tenant);
+        Limit limit = limits.get(tier);
+        if (limit == null) {
+            LOGGER.warn("Rate tier {} of tenant {} is not configured, using the default tier", tier, tenant);
+            limit = defaultLimit;
+        }
+        return new Bucket(limit);
+    }
+
+    private void reject(String tenant, Limit limit, long wait, HttpServletResponse response) throws IOException {
+        LOGGER.debug("Rejected request of tenant {}: rate of tier {} exceeded", tenant, limit.tier);
+        limit.rejected.increment();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        response.getWriter().write("Too many requests");
+    }
+
+    /**
+     * Limit: time between two requests of a tier and the time a burst may run ahead of it, in nanoseconds.
+     */
+    private static final class Limit {
+
+        private final String tier;
+        private final long interval;
+        private final long tolerance;
+        private final Counter rejected;
+
+        private Limit(String tier, double requestsPerSecond, int burst) {
+            this.tier = tier;
+            this.interval = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+            this.tolerance = interval * Math.max(burst, 1);
+            this.rejected = Counter.builder("tenant.rate.rejected")
+                    .description("Requests rejected because their tenant exceeded the rate of its tier")
+                    .tag("tier", tier)
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
+    /**
+     * Bucket: theoretical arrival time of the next request of a tenant. The bucket is full while that time lies in the
+     * past and every request moves it one interval further; a request is admitted as long as the time stays within
+     * the burst tolerance ahead of now.
+     */
+    private static final class Bucket {
+
+        private final Limit limit;
+        private final AtomicLong arrival;
+
+        private Bucket(Limit limit) {
+            this.limit = limit;
+            this.arrival = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Takes a token if there is one.
+         *
+         * @param now current nano time.
+         * @return 0 if a token has been taken, otherwise nanoseconds until the next token is available.
+         */
+        private long take(long now) {
+            if (limit.interval == 0) return 0;
+
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + limit.interval;
+                long ahead = next - now - limit.tolerance;
+                if (ahead > 0) return ahead;
+                if (arrival.compareAndSet(current, next)) return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.multitenant.service;
+
+import com.example.multitenant.endpoint.dto.MovieImportReportDto;
+import com.example.multitenant.exceptionhandler.exceptions.ValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public interface MovieImportService {
+
+    /**
+     * Imports movies into the active tenant while reading them. Rows are committed in chunks, so memory usage
+     * doesn't depend on the size of the input. Invalid rows are skipped and reported.
+     *
+     * @param reader providing the rows, csv with a header line or one json object per line.
+     * @param format of the rows.
+     * @return numbers of imported and failed rows and the first errors by line.
+     * @throws ValidationException if the csv header lacks a required column.
+     * @throws IOException if reading fails.
+     */
+    MovieImportReportDto importMovies(Reader reader, Format format) throws ValidationException, IOException;
+
+    /**
+     * Format: supported formats of imports.
+     */
+    enum Format {
+
+        CSV,
+        NDJSON
+    }
+}
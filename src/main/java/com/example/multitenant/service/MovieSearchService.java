@@ -0,0 +1,28 @@
+package com.example.multitenant.service;
+
+import com.example.multitenant.endpoint.dto.MovieSearchResultDto;
+import com.example.multitenant.exceptionhandler.exceptions.UnavailableException;
+import com.example.multitenant.entity.Movie;
+
+public interface MovieSearchService {
+
+    /**
+     * Searches movies of the active tenant by title. Every word of the query matches title words starting with it;
+     * movies matching more words rank higher and exact word matches rank higher than prefix matches.
+     *
+     * @param query words to search for.
+     * @param page number of the page, starting at 0.
+     * @param size maximum number of movies per page.
+     * @return ranked movies of the page and the total number of matches.
+     * @throws UnavailableException if the tenant has more movies than can be indexed.
+     */
+    MovieSearchResultDto search(String query, int page, int size);
+
+    /**
+     * Adds saved movie to the index of the active tenant once the save has been committed, replacing its previous
+     * title. Removed movies are dropped from the index on their own.
+     *
+     * @param movie which has been saved.
+     */
+    void index(Movie movie);
+}
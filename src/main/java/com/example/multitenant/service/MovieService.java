@@ -1,7 +1,14 @@
 package com.example.multitenant.service;
 
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieSort;
 import com.example.multitenant.entity.Movie;
 import com.example.multitenant.exceptionhandler.exceptions.NotFoundException;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface MovieService {
 
@@ -15,10 +22,69 @@ public interface MovieService {
     Movie findById(Long id) throws NotFoundException;
 
     /**
-     * Saves movie.
+     * Finds movie with given id as dto, read by projection without loading the entity. Movies are cached per tenant
+     * until they are changed or their tenant is closed.
+     *
+     * @param id of movie.
+     * @return all details about the movie.
+     * @throws NotFoundException if movie with given id doesn't exist.
+     */
+    MovieDto findDtoById(Long id) throws NotFoundException;
+
+    /**
+     * Finds current version of movie with given id. The version of a cached movie is used if there is one, otherwise
+     * only the version is read from the database.
+     *
+     * @param id of movie.
+     * @return version of the movie.
+     * @throws NotFoundException if movie with given id doesn't exist.
+     */
+    Long findVersion(Long id) throws NotFoundException;
+
+    /**
+     * Saves movie. Updates carrying the version they are based on fail if the movie has been changed since, updates
+     * without a version overwrite the current movie. The movie is checked and saved in one transaction, and the cached
+     * movie is invalidated and the search index updated once it has been committed.
      *
      * @param movie containing details about movie.
      * @return id of saved movie.
+     * @throws NotFoundException if movie with id of the update doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the movie has been changed since.
      */
     Long save(Movie movie);
+
+    /**
+     * Saves movies in a single transaction using batched inserts. Cached movies are invalidated and the search index
+     * is updated once the transaction has been committed, so a rejected batch leaves no trace.
+     *
+     * @param movies containing details about movies.
+     * @return ids of saved movies in the order of the given movies.
+     * @throws NotFoundException if movie with id of an update doesn't exist.
+     */
+    List<Long> saveAll(List<Movie> movies);
+
+    /**
+     * Finds a page of movies following the given movie. Pages are read with keyset pagination, so every page costs
+     * the same regardless of its position.
+     *
+     * @param sort order of movies.
+     * @param after last movie of the previous page, null for the first page.
+     * @param size maximum number of movies.
+     * @return dtos of the movies in the requested order.
+     */
+    List<MovieDto> findPage(MovieSort sort, MovieDto after, int size);
+
+    /**
+     * Streams all movies of the active tenant ordered by id without loading them into memory at once.
+     *
+     * @param consumer receiving each movie, the dto must not be retained beyond the call.
+     */
+    void export(Consumer<MovieDto> consumer);
+
+    /**
+     * Gets statistics of the movie cache.
+     *
+     * @return hit and miss counts by hashed tenant identifier of all open tenants.
+     */
+    Map<String, CacheStats> getCacheStats();
 }
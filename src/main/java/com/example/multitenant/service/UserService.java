@@ -43,4 +43,20 @@ public interface UserService extends UserDetailsService {
      * @return true if the user with the given email exists.
      */
     Boolean existsByEmail(String email);
+
+    /**
+     * Checks if user is still active, i.e. exists. Positive answers are cached for a bounded amount of time, hence
+     * this must not be used to check uniqueness.
+     *
+     * @param email of user.
+     * @return true if the user with the given email exists.
+     */
+    Boolean isActive(String email);
+
+    /**
+     * Removes user from the cache of active users. Has to be called whenever a user is deleted or renamed.
+     *
+     * @param email of user.
+     */
+    void invalidate(String email);
 }
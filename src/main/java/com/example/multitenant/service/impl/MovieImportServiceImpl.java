@@ -0,0 +1,288 @@
+package com.example.multitenant.service.impl;
+
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieImportErrorDto;
+import com.example.multitenant.endpoint.dto.MovieImportReportDto;
+import com.example.multitenant.entity.Movie;
+import com.example.multitenant.exceptionhandler.exceptions.ValidationException;
+import com.example.multitenant.service.MovieImportService;
+import com.example.multitenant.service.MovieService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class MovieImportServiceImpl implements MovieImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private final MovieService movieService;
+    private final ObjectReader movieReader;
+
+    @Autowired
+    public MovieImportServiceImpl(MovieService movieService, ObjectMapper objectMapper) {
+        this.movieService = movieService;
+        this.movieReader = objectMapper.readerFor(MovieDto.class);
+    }
+
+    @Override
+    public MovieImportReportDto importMovies(Reader reader, Format format) throws ValidationException, IOException {
+        LOGGER.trace("importMovies({})", format);
+
+        Lines lines = new Lines(reader);
+        Import current = new Import();
+
+        int[] columns = null;
+        if (format == Format.CSV) {
+            String header = lines.next();
+            if (header == null) return current.report();
+            if (lines.tooLong) throw new ValidationException("Csv header exceeds " + MAX_LINE_LENGTH + " characters");
+
+            current.line++;
+            columns = parseHeader(header);
+        }
+
+        String line;
+        while ((line = lines.next()) != null) {
+            current.line++;
+            if (lines.tooLong) {
+                current.fail(current.line, "Line exceeds " + MAX_LINE_LENGTH + " characters");
+                continue;
+            }
+            if (line.isBlank()) continue;
+
+            try {
+                current.add(format == Format.CSV ? parseCsv(line, columns) : parseJson(line));
+            } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+                current.fail(current.line, e.getMessage());
+            }
+
+            if (current.chunk.size() == CHUNK_SIZE) current.commit();
+        }
+
+        current.commit();
+        return current.report();
+    }
+
+    /**
+     * Finds positions of the required columns.
+     *
+     * @param header first line of the csv.
+     * @return positions of title, runtime and release date.
+     * @throws ValidationException if a column is missing.
+     */
+    private int[] parseHeader(String header) {
+        List<String> names = splitCsv(header.trim());
+        int[] columns = new int[]{names.indexOf("title"), names.indexOf("runtime"), names.indexOf("releaseDate")};
+        for (int column : columns) {
+            if (column < 0) throw new ValidationException("Csv header must contain title, runtime and releaseDate");
+        }
+
+        return columns;
+    }
+
+    private Movie parseCsv(String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() <= Math.max(columns[0], Math.max(columns[1], columns[2]))) {
+            throw new IllegalArgumentException("Row has " + fields.size() + " columns");
+        }
+
+        return validate(Movie.builder()
+                .title(fields.get(columns[0]))
+                .runtime(Long.parseLong(fields.get(columns[1]).trim()))
+                .releaseDate(LocalDate.parse(fields.get(columns[2]).trim()))
+                .build());
+    }
+
+    private Movie parseJson(String line) throws IOException {
+        MovieDto movieDto = movieReader.readValue(line);
+        return validate(Movie.builder()
+                .title(movieDto.getTitle())
+                .runtime(movieDto.getRuntime())
+                .releaseDate(movieDto.getReleaseDate())
+                .build());
+    }
+
+    /**
+     * Checks constraints of the movie table before the row reaches the database, so a single invalid row doesn't
+     * fail the whole chunk.
+     *
+     * @param movie to validate.
+     * @return the given movie.
+     * @throws IllegalArgumentException if the movie is invalid.
+     */
+    private Movie validate(Movie movie) {
+        if (movie.getTitle() == null || movie.getTitle().isBlank()) throw new IllegalArgumentException("Title is required");
+        if (movie.getTitle().length() > MAX_TITLE_LENGTH) throw new IllegalArgumentException("Title is too long");
+        if (movie.getRuntime() == null || movie.getRuntime() <= 0) throw new IllegalArgumentException("Runtime must be positive");
+        if (movie.getReleaseDate() == null) throw new IllegalArgumentException("Release date is required");
+
+        return movie;
+    }
+
+    /**
+     * Splits a csv line into fields. Fields may be quoted with double quotes, which are escaped by doubling them.
+     *
+     * @param line to split.
+     * @return fields of the line.
+     * @throws IllegalArgumentException if a quoted field isn't terminated.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted field");
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Lines: splits input into lines of at most {@link #MAX_LINE_LENGTH} characters, so a single line without a line
+     * break can't exhaust the heap. The rest of a longer line is skipped and the line is marked as too long. The
+     * carriage return of a CRLF line break doesn't count towards the length.
+     */
+    private static final class Lines {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        private Lines(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next line.
+         *
+         * @return line without its line break, null at the end of the input.
+         * @throws IOException if the input can't be read.
+         */
+        private String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                    position = 0;
+                    if (limit == 0) return read ? finish() : null;
+                }
+                read = true;
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    return finish();
+                }
+            }
+        }
+
+        private void append(int start, int end) {
+            // one more character than allowed, which may be the carriage return of the line break
+            int room = MAX_LINE_LENGTH + 1 - line.length();
+            if (end - start > room) {
+                tooLong = true;
+                end = start + room;
+            }
+            line.append(buffer, start, end - start);
+        }
+
+        private String finish() {
+            int last = line.length() - 1;
+            if (last >= 0 && line.charAt(last) == '\r') line.setLength(last);
+            if (line.length() > MAX_LINE_LENGTH) {
+                tooLong = true;
+                line.setLength(MAX_LINE_LENGTH);
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Import: state of a running import. Only the current chunk and a bounded number of errors are kept.
+     */
+    private final class Import {
+
+        private final List<Movie> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final long[] chunkLines = new long[CHUNK_SIZE];
+        private final List<MovieImportErrorDto> errors = new ArrayList<>();
+        private long line;
+        private long imported;
+        private long failed;
+
+        private void add(Movie movie) {
+            chunkLines[chunk.size()] = line;
+            chunk.add(movie);
+        }
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new MovieImportErrorDto(line, message));
+        }
+
+        /**
+         * Saves current chunk in its own transaction. If the chunk is rejected by the database all its rows are
+         * reported as failed and the import continues with the next chunk.
+         */
+        private void commit() {
+            if (chunk.isEmpty()) return;
+
+            try {
+                movieService.saveAll(chunk);
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not import chunk ending at line {}: {}", line, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) fail(chunkLines[i], "Chunk failed: " + e.getMessage());
+            }
+
+            chunk.clear();
+        }
+
+        private MovieImportReportDto report() {
+            return new MovieImportReportDto(imported, failed, errors);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.multitenant.service.impl;
+
+import com.example.multitenant.config.AfterCommit;
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.TenantRegistry;
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieSearchResultDto;
+import com.example.multitenant.entity.Movie;
+import com.example.multitenant.entity.MovieListener;
+import com.example.multitenant.exceptionhandler.exceptions.UnavailableException;
+import com.example.multitenant.repository.MovieRepository;
+import com.example.multitenant.service.MovieSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * MovieSearchServiceImpl: searches titles with an in-memory inverted index per open tenant. The index of a tenant is
+ * built from its database on the first search after the tenant has been opened, kept up to date by every committed
+ * save and removal and dropped when the tenant is closed. Every index is capped at the maximum number of titles, a
+ * tenant with more movies is refused instead of scanning its movies on every search, until it's opened again.
+ */
+@Service
+public class MovieSearchServiceImpl implements MovieSearchService, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int EXACT_MATCH = 2;
+    private static final int PREFIX_MATCH = 1;
+
+    private final MovieRepository movieRepository;
+    private final Map<String, TitleIndex> indexes = new ConcurrentHashMap<>();
+    private final long maxTitles;
+    private final Consumer<Movie> removeListener;
+
+    @Autowired
+    public MovieSearchServiceImpl(MovieRepository movieRepository, DatabaseProperties databaseProperties,
+                                  TenantRegistry tenantRegistry) {
+        this.movieRepository = movieRepository;
+        this.maxTitles = databaseProperties.getTenantSearchMaxTitles();
+
+        // indexes only live as long as their tenant is open, which bounds them by the open tenants
+        tenantRegistry.addCloseListener(indexes::remove);
+
+        removeListener = this::remove;
+        MovieListener.addRemoveListener(removeListener);
+    }
+
+    @Override
+    public void destroy() {
+        MovieListener.removeRemoveListener(removeListener);
+    }
+
+    @Override
+    public MovieSearchResultDto search(String query, int page, int size) {
+        LOGGER.trace("search({}, {}, {})", query, page, size);
+
+        TitleIndex index = indexes.computeIfAbsent(DatabaseConfig.DBContextHolder.getContext(), tenant -> new TitleIndex(maxTitles));
+        index.build(movieRepository);
+        if (index.oversized) throw new UnavailableException("Search is not available for more than " + maxTitles + " movies");
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String word : new LinkedHashSet<>(tokenize(query))) {
+            Map<Long, Integer> matches = new HashMap<>();
+            index.postings.subMap(word, true, word + Character.MAX_VALUE, false).forEach((token, ids) -> {
+                int score = token.equals(word) ? EXACT_MATCH : PREFIX_MATCH;
+                for (Long id : ids) matches.merge(id, score, Math::max);
+            });
+            matches.forEach((id, score) -> scores.merge(id, score, Integer::sum));
+        }
+
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip((long) page * size)
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        // movies deleted behind the back of the index are skipped
+        Map<Long, MovieDto> movies = ranked.isEmpty() ? Map.of() : movieRepository.findDtosByIdIn(ranked).stream()
+                .collect(Collectors.toMap(MovieDto::getId, Function.identity()));
+
+        return new MovieSearchResultDto(ranked.stream().map(movies::get).filter(Objects::nonNull).collect(Collectors.toList()),
+                (long) scores.size());
+    }
+
+    @Override
+    public void index(Movie movie) {
+        // a rolled back save never reaches the index, the version is read on commit when it has been incremented
+        String tenant = DatabaseConfig.DBContextHolder.getContext();
+        AfterCommit.run(() -> {
+            TitleIndex index = indexes.get(tenant);
+            if (index != null) index.put(movie.getId(), movie.getVersion(), movie.getTitle());
+        });
+    }
+
+    /**
+     * Drops removed movie from the index of the active tenant once the removal has been committed.
+     *
+     * @param movie which has been removed.
+     */
+    private void remove(Movie movie) {
+        String tenant = DatabaseConfig.DBContextHolder.getContext();
+        AfterCommit.run(() -> {
+            TitleIndex index = indexes.get(tenant);
+            if (index != null) index.remove(movie.getId());
+        });
+    }
+
+    /**
+     * Splits text into lower case words.
+     *
+     * @param text to split.
+     * @return words in order of appearance.
+     */
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) start = i;
+            if (!letter && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * TitleIndex: words of titles mapped to the ids of their movies. Saves and removals may update the index while it
+     * is being built. Titles are kept with their version, so a title read by the build never replaces a newer one of
+     * a concurrent save, and removals during the build leave a tombstone, so the build can't bring the movie back.
+     * Once the index exceeds its maximum number of titles it's emptied and marked as oversized for good.
+     */
+    private static final class TitleIndex {
+
+        private static final Title REMOVED = new Title(Long.MAX_VALUE, "");
+
+        private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Long, Title> titles = new ConcurrentHashMap<>();
+        private final long maxTitles;
+        private volatile boolean built;
+        private volatile boolean oversized;
+
+        private TitleIndex(long maxTitles) {
+            this.maxTitles = maxTitles;
+        }
+
+        /**
+         * Reads all titles of the active tenant unless that has already been done. Tenants with more movies than the
+         * maximum are not read at all.
+         *
+         * @param movieRepository of the active tenant.
+         */
+        private void build(MovieRepository movieRepository) {
+            if (built) return;
+
+            synchronized (this) {
+                if (built) return;
+
+                long start = System.nanoTime();
+                if (movieRepository.count() > maxTitles) {
+                    overflow();
+                } else {
+                    movieRepository.streamAll(movie -> put(movie.getId(), movie.getVersion(), movie.getTitle()));
+                    titles.values().removeIf(title -> title == REMOVED);
+                }
+                built = true;
+                LOGGER.debug("Indexed {} titles in {} ms", titles.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        private void overflow() {
+            LOGGER.warn("Index exceeds {} titles, search is disabled until the tenant is opened again", maxTitles);
+            oversized = true;
+            titles.clear();
+            postings.clear();
+        }
+
+        private void put(Long id, Long version, String title) {
+            replace(id, new Title(version == null ? 0 : version, title));
+        }
+
+        private void remove(Long id) {
+            if (built) {
+                titles.computeIfPresent(id, (key, previous) -> {
+                    unlink(id, previous);
+                    return null;
+                });
+            } else {
+                replace(id, REMOVED);
+            }
+        }
+
+        private void replace(Long id, Title title) {
+            if (oversized) return;
+
+            titles.compute(id, (key, previous) -> {
+                if (previous != null && previous.version >= title.version) return previous;
+                if (previous != null) unlink(id, previous);
+                for (String word : tokenize(title.text)) link(id, word);
+                return title;
+            });
+            if (titles.size() > maxTitles) overflow();
+        }
+
+        // sets are only changed within the atomic updates of their word, so an emptied set can be dropped safely
+        private void link(Long id, String word) {
+            postings.compute(word, (key, ids) -> {
+                Set<Long> linked = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                linked.add(id);
+                return linked;
+            });
+        }
+
+        private void unlink(Long id, Title title) {
+            for (String word : tokenize(title.text)) {
+                postings.computeIfPresent(word, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * Title: indexed title of a movie and the version it has been read from.
+     */
+    private static final class Title {
+
+        private final long version;
+        private final String text;
+
+        private Title(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+}
@@ -1,30 +1,67 @@
 package com.example.multitenant.service.impl;
 
+import com.example.multitenant.config.AfterCommit;
+import com.example.multitenant.config.TenantCache;
+import com.example.multitenant.config.TenantRegistry;
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieSort;
 import com.example.multitenant.entity.Movie;
+import com.example.multitenant.entity.MovieListener;
 import com.example.multitenant.exceptionhandler.exceptions.NotFoundException;
 import com.example.multitenant.repository.MovieRepository;
+import com.example.multitenant.service.MovieSearchService;
 import com.example.multitenant.service.MovieService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
-public class MovieServiceImpl implements MovieService {
+public class MovieServiceImpl implements MovieService, DisposableBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MOVIE_OVERHEAD = 128;
 
     private final MovieRepository movieRepository;
+    private final MovieSearchService movieSearchService;
+    private final TenantCache<Long, MovieDto> movieCache;
+    private final Consumer<Movie> changeListener;
 
     @Autowired
-    public MovieServiceImpl(MovieRepository movieRepository) {
+    public MovieServiceImpl(MovieRepository movieRepository, MovieSearchService movieSearchService,
+                            DatabaseProperties databaseProperties, TenantRegistry tenantRegistry) {
         this.movieRepository = movieRepository;
+        this.movieSearchService = movieSearchService;
+
+        // estimated heap usage of a cached movie: object headers and fields plus the characters of its title
+        movieCache = new TenantCache<>(databaseProperties.getTenantCacheBudget(), databaseProperties.getTenantCacheTtl(),
+                (id, movie) -> MOVIE_OVERHEAD + 2 * movie.getTitle().length());
+        tenantRegistry.addCloseListener(movieCache::evictRegion);
+
+        changeListener = movie -> invalidate(movie.getId());
+        MovieListener.addChangeListener(changeListener);
+    }
+
+    @Override
+    public void destroy() {
+        MovieListener.removeChangeListener(changeListener);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Movie findById(Long id) throws NotFoundException {
         LOGGER.trace("findById({})", id);
 
@@ -34,8 +71,100 @@ public class MovieServiceImpl implements MovieService {
     }
 
     @Override
+    public MovieDto findDtoById(Long id) throws NotFoundException {
+        LOGGER.trace("findDtoById({})", id);
+
+        // not transactional itself, so cache hits don't acquire a connection
+        Optional<MovieDto> movie = movieCache.get(id, movieRepository::findDtoById);
+        if (movie.isEmpty()) throw new NotFoundException(String.format("Movie with id: %d not found", id));
+        return movie.get();
+    }
+
+    @Override
+    public Long findVersion(Long id) throws NotFoundException {
+        LOGGER.trace("findVersion({})", id);
+
+        // a cached movie is invalidated once a change commits, so its version is the one findDtoById would return
+        Optional<Long> version = movieCache.getIfPresent(id).map(MovieDto::getVersion)
+                .or(() -> movieRepository.findVersionById(id));
+        if (version.isEmpty()) throw new NotFoundException(String.format("Movie with id: %d not found", id));
+        return version.get();
+    }
+
+    @Override
+    @Transactional
     public Long save(Movie movie) {
         LOGGER.trace("save({})", movie);
-        return movieRepository.save(movie).getId();
+        checkUpdate(movie);
+        Movie saved = movieRepository.save(movie);
+        invalidate(saved.getId());
+        movieSearchService.index(saved);
+        return saved.getId();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> saveAll(List<Movie> movies) {
+        LOGGER.trace("saveAll({} movies)", movies.size());
+        movies.forEach(this::checkUpdate);
+        List<Movie> saved = movieRepository.saveAll(movies);
+        for (Movie movie : saved) {
+            invalidate(movie.getId());
+            movieSearchService.index(movie);
+        }
+        return saved.stream().map(Movie::getId).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MovieDto> findPage(MovieSort sort, MovieDto after, int size) {
+        LOGGER.trace("findPage({}, {}, {})", sort, after, size);
+
+        PageRequest limit = PageRequest.of(0, size);
+        if (sort == MovieSort.RELEASE_DATE) {
+            return after == null
+                    ? movieRepository.findFirstPageByReleaseDate(limit)
+                    : movieRepository.findPageByReleaseDate(after.getReleaseDate(), after.getId(), limit);
+        }
+
+        return movieRepository.findPageById(after == null ? 0L : after.getId(), limit);
+    }
+
+    @Override
+    public void export(Consumer<MovieDto> consumer) {
+        LOGGER.trace("export()");
+        movieRepository.streamAll(consumer);
+    }
+
+    @Override
+    public Map<String, CacheStats> getCacheStats() {
+        return movieCache.getStats();
+    }
+
+    /**
+     * Invalidates cached movie once the change is committed, so readers can't cache the previous row again.
+     *
+     * @param id of changed movie.
+     */
+    private void invalidate(Long id) {
+        AfterCommit.run(() -> movieCache.invalidate(id));
+    }
+
+    /**
+     * Checks that an update targets a stored movie. An update carrying the version it is based on is compared with
+     * the stored version on commit. An update without a version adopts the current one, so the last writer wins.
+     *
+     * @param movie to save.
+     * @throws NotFoundException if movie with id of the update doesn't exist.
+     */
+    private void checkUpdate(Movie movie) {
+        Long id = movie.getId();
+        if (id == null) return;
+        Supplier<NotFoundException> notFound = () -> new NotFoundException(String.format("Movie with id: %d not found", id));
+        if (movie.getVersion() == null) {
+            movie.setVersion(movieRepository.findVersionById(id).orElseThrow(notFound));
+        } else if (!movieRepository.existsById(id)) {
+            throw notFound.get();
+        }
     }
 }
@@ -1,11 +1,17 @@
 package com.example.multitenant.service.impl;
 
+import com.example.multitenant.config.AfterCommit;
 import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.SecurityProperties;
 import com.example.multitenant.entity.User;
 import com.example.multitenant.exceptionhandler.exceptions.NotFoundException;
 import com.example.multitenant.exceptionhandler.exceptions.ValidationException;
 import com.example.multitenant.repository.UserRepository;
 import com.example.multitenant.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,20 +24,31 @@ import org.springframework.stereotype.Service;
 import javax.transaction.Transactional;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
 import java.util.Optional;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Counter EXISTS_BY_EMAIL = Counter.builder("user.exists.by.email")
+            .description("Lookups of users by email in the default database")
+            .register(Metrics.globalRegistry);
 
     private final UserRepository userRepository;
     private final DatabaseConfig databaseConfig;
+    private final Cache<String, Boolean> activeUsers;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, DatabaseConfig databaseConfig) {
+    public UserServiceImpl(UserRepository userRepository, DatabaseConfig databaseConfig,
+                           SecurityProperties securityProperties) {
         this.userRepository = userRepository;
         this.databaseConfig = databaseConfig;
+
+        activeUsers = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getUserCacheSize())
+                .expireAfterWrite(Duration.ofMillis(securityProperties.getUserCacheStaleness()))
+                .build();
     }
 
     @Override
@@ -81,6 +98,8 @@ public class UserServiceImpl implements UserService {
 
         String existingEmail = SecurityContextHolder.getContext().getAuthentication().getName();
         userRepository.changeUserEmail(existingEmail, user.getEmail());
+        // a load before the commit would still find the old email and cache it again
+        AfterCommit.run(() -> invalidate(existingEmail));
         databaseConfig.renameDatasource(existingEmail, user.getEmail());
 
         return user.getEmail();
@@ -89,6 +108,24 @@ public class UserServiceImpl implements UserService {
     @Override
     public Boolean existsByEmail(String email) {
         LOGGER.trace("existsByEmail({})", email);
+        EXISTS_BY_EMAIL.increment();
         return userRepository.existsUserByEmailEquals(email);
     }
+
+    @Override
+    public Boolean isActive(String email) {
+        LOGGER.trace("isActive({})", email);
+
+        if (activeUsers.getIfPresent(email) != null) return true;
+
+        Boolean exists = existsByEmail(email);
+        if (exists) activeUsers.put(email, true);
+        return exists;
+    }
+
+    @Override
+    public void invalidate(String email) {
+        LOGGER.trace("invalidate({})", email);
+        activeUsers.invalidate(email);
+    }
 }
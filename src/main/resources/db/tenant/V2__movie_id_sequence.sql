@@ -0,0 +1,2 @@
+CREATE SEQUENCE IF NOT EXISTS movie_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE movie_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM Movie);
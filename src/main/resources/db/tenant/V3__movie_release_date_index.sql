@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_movie_release_date ON Movie (releaseDate, id);
@@ -0,0 +1,27 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.config.DatabaseConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hashing a username into its tenant identifier, which requests pay for whenever their token lacks the
+ * tenant claim and on every login and signup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSourceNameBenchmark {
+
+    @Param({"user@test.com", "a.rather.long.username.of.sixty.characters@example-domain.com"})
+    private String username;
+
+    @Benchmark
+    public String generateDataSourceName() {
+        return DatabaseConfig.DBContextHolder.generateDataSourceName(username);
+    }
+}
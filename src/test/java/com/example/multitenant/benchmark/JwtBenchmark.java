@@ -0,0 +1,72 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import com.example.multitenant.config.properties.SecurityProperties;
+import com.example.multitenant.security.JwtTokenizer;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating tokens on login and parsing them on every request as done by {@code JwtAuthorization}. With a
+ * cache size of 0 every parse verifies the signature, otherwise repeated tokens are served from the claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private JwtTokenizer jwtTokenizer;
+    private List<String> roles;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("jwt-benchmark");
+        context = new SpringApplicationBuilder(MultiTenantApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--security.jwt.cache-size=" + cacheSize
+        );
+
+        jwtTokenizer = context.getBean(JwtTokenizer.class);
+        roles = List.of("ROLE_USER");
+        token = jwtTokenizer.createToken("benchmark@test.com", roles)
+                .substring(context.getBean(SecurityProperties.class).getAuthTokenPrefix().length());
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtTokenizer.createToken("benchmark@test.com", roles);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtTokenizer.parseToken(token);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test of the running application. It boots the application on a random port with a temporary
+ * database directory, signs up and logs in the given number of tenants and lets concurrent clients send a mix of
+ * movie reads and writes to randomly chosen tenants over HTTP. Throughput and latency percentiles are reported for the
+ * measurement phase, which follows a warm-up phase.
+ *
+ * <p>Run with {@code mvn -Ploadtest verify -Dload.tenants=1000 -Dload.clients=64 -Dload.writes=0.1}. Further
+ * application arguments, e.g. {@code --tenant.max-open=500}, can be given by {@code -Dload.args}. Provisioning is
+ * bound by BCrypt on signup and login, which takes about 0.2 s per tenant and core.
+ */
+public class LoadTest {
+
+    private static final int TENANTS = Integer.getInteger("load.tenants", 10);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 16);
+    private static final double WRITES = Double.parseDouble(System.getProperty("load.writes", "0.1"));
+    private static final int WARMUP = Integer.getInteger("load.warmup", 10);
+    private static final int DURATION = Integer.getInteger("load.duration", 30);
+    private static final String ARGS = System.getProperty("load.args", "");
+    private static final String PASSWORD = "password123";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newCachedThreadPool(daemon("load-http")))
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUri;
+
+    private LoadTest(int port) {
+        baseUri = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("load-test");
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        ));
+        if (!ARGS.isBlank()) arguments.addAll(Arrays.asList(ARGS.trim().split("\\s+")));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MultiTenantApplication.class)
+                .run(arguments.toArray(String[]::new));
+        try {
+            LoadTest loadTest = new LoadTest(((WebServerApplicationContext) context).getWebServer().getPort());
+            loadTest.run(loadTest.provision());
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(directory);
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Signs up and logs in all tenants and stores a first movie for each of them.
+     *
+     * @return tenants ready to receive requests.
+     */
+    private List<Tenant> provision() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, daemon("load-provision"));
+        AtomicInteger done = new AtomicInteger();
+        long start = System.nanoTime();
+
+        List<Future<Tenant>> futures = new ArrayList<>(TENANTS);
+        for (int i = 0; i < TENANTS; i++) {
+            String email = "tenant" + i + "@load.com";
+            futures.add(executor.submit(() -> {
+                expect(201, send(post("/api/v1/user/signup", null, String.format(
+                        "{\"email\":\"%s\",\"password\":\"%s\",\"confirmation\":\"%s\"}", email, PASSWORD, PASSWORD))));
+
+                HttpResponse<String> login = expect(200, send(post("/api/v1/authentication", null, String.format(
+                        "{\"email\":\"%s\",\"password\":\"%s\"}", email, PASSWORD))));
+                Tenant tenant = new Tenant(login.body());
+                tenant.movies.add(Long.parseLong(expect(200, send(post("/api/v1/movie", tenant.token, movie(0)))).body()));
+
+                int provisioned = done.incrementAndGet();
+                if (provisioned % 100 == 0) System.out.printf("Provisioned %d of %d tenants%n", provisioned, TENANTS);
+                return tenant;
+            }));
+        }
+
+        List<Tenant> tenants = new ArrayList<>(TENANTS);
+        for (Future<Tenant> future : futures) tenants.add(future.get());
+        executor.shutdown();
+
+        System.out.printf("Provisioned %d tenants in %d s%n", TENANTS, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        return tenants;
+    }
+
+    /**
+     * Runs warm-up and measurement with concurrent clients and prints the results of the measurement.
+     *
+     * @param tenants to send requests to.
+     */
+    private void run(List<Tenant> tenants) throws InterruptedException {
+        System.out.printf("Running %d clients against %d tenants with %.0f%% writes: %d s warm-up, %d s measurement%n",
+                CLIENTS, TENANTS, WRITES * 100, WARMUP, DURATION);
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP);
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(DURATION);
+
+        List<Client> clients = new ArrayList<>(CLIENTS);
+        List<Thread> threads = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Client loadClient = new Client(tenants, measureFrom, measureUntil);
+            Thread thread = daemon("load-client").newThread(loadClient);
+            clients.add(loadClient);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        Latencies reads = new Latencies();
+        Latencies writes = new Latencies();
+        long errors = 0;
+        for (Client loadClient : clients) {
+            reads.addAll(loadClient.reads);
+            writes.addAll(loadClient.writes);
+            errors += loadClient.errors;
+        }
+
+        Latencies all = new Latencies();
+        all.addAll(reads);
+        all.addAll(writes);
+
+        System.out.printf("%-6s %10s %10s %10s %10s %10s%n", "", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        print("reads", reads);
+        print("writes", writes);
+        print("total", all);
+        System.out.printf("errors %10d%n", errors);
+    }
+
+    private void print(String name, Latencies latencies) {
+        latencies.sort();
+        System.out.printf(Locale.ROOT, "%-6s %10d %10.0f %10.2f %10.2f %10.2f%n", name, latencies.size,
+                (double) latencies.size / DURATION, latencies.percentile(0.5), latencies.percentile(0.99),
+                latencies.percentile(0.999));
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) request.header("Authorization", token);
+        return request.build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).header("Authorization", token).GET().build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expect(int status, HttpResponse<String> response) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().uri() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static String movie(int number) {
+        return String.format("{\"title\":\"Movie %d\",\"runtime\":%d,\"releaseDate\":\"2000-01-01\"}", number, 90 + number % 60);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Tenant: logged in tenant and the ids of its movies known to the clients.
+     */
+    private static final class Tenant {
+
+        private final String token;
+        private final List<Long> movies = new CopyOnWriteArrayList<>();
+
+        private Tenant(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Client: sends one request after the other until the end of the measurement. Latencies are only recorded during
+     * the measurement.
+     */
+    private final class Client implements Runnable {
+
+        private final List<Tenant> tenants;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final Latencies reads = new Latencies();
+        private final Latencies writes = new Latencies();
+        private long errors;
+
+        private Client(List<Tenant> tenants, long measureFrom, long measureUntil) {
+            this.tenants = tenants;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < measureUntil) {
+                Tenant tenant = tenants.get(random.nextInt(tenants.size()));
+                boolean write = random.nextDouble() < WRITES;
+
+                int status;
+                try {
+                    HttpResponse<String> response = write
+                            ? send(post("/api/v1/movie", tenant.token, movie(random.nextInt(1000))))
+                            : send(get("/api/v1/movie/" + tenant.movies.get(random.nextInt(tenant.movies.size())), tenant.token));
+                    status = response.statusCode();
+                    if (write && status == 200) tenant.movies.add(Long.parseLong(response.body()));
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long end = System.nanoTime();
+                if (now < measureFrom) continue;
+
+                if (status != 200) errors++;
+                else (write ? writes : reads).add(end - now);
+            }
+        }
+    }
+
+    /**
+     * Latencies: growing array of latencies in nanoseconds, which avoids boxing millions of samples.
+     */
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        private void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        private void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        /**
+         * Gets percentile of sorted latencies.
+         *
+         * @param quantile between 0 and 1.
+         * @return latency in milliseconds, 0 if there are none.
+         */
+        private double percentile(double quantile) {
+            if (size == 0) return 0;
+            return values[Math.min(size - 1, (int) Math.ceil(quantile * size) - 1)] / 1e6;
+        }
+    }
+}
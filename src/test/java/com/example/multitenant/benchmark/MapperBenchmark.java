@@ -0,0 +1,80 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.UserEmailDto;
+import com.example.multitenant.endpoint.dto.UserSignupDto;
+import com.example.multitenant.endpoint.mapper.MovieMapper;
+import com.example.multitenant.endpoint.mapper.UserMapper;
+import com.example.multitenant.entity.Movie;
+import com.example.multitenant.entity.User;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dto conversions of the endpoints. Passwords of mapped users are only hashed when they are persisted,
+ * so these conversions don't include BCrypt, see {@link PasswordEncoderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int BATCH = 100;
+
+    private final MovieMapper movieMapper = Mappers.getMapper(MovieMapper.class);
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private Movie movie;
+    private MovieDto movieDto;
+    private List<MovieDto> movieDtos;
+    private UserSignupDto userSignupDto;
+    private UserEmailDto userEmailDto;
+
+    @Setup
+    public void setup() {
+        movie = Movie.builder().id(1L).title("Movie").runtime(120L).releaseDate(LocalDate.of(2000, 1, 1)).version(0L).build();
+        movieDto = movieMapper.movieToMovieDto(movie);
+
+        movieDtos = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            movieDtos.add(MovieDto.builder().title("Movie " + i).runtime(120L).releaseDate(LocalDate.of(2000, 1, 1)).build());
+        }
+
+        userSignupDto = UserSignupDto.builder().email("user@test.com").password("password123").confirmation("password123").build();
+        userEmailDto = UserEmailDto.builder().email("user@test.com").build();
+    }
+
+    @Benchmark
+    public MovieDto movieToMovieDto() {
+        return movieMapper.movieToMovieDto(movie);
+    }
+
+    @Benchmark
+    public Movie movieDtoToMovie() {
+        return movieMapper.movieDtoToMovie(movieDto);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Movie> movieDtosToMovies() {
+        return movieMapper.movieDtosToMovies(movieDtos);
+    }
+
+    @Benchmark
+    public User userSignupDtoToUser() {
+        return userMapper.userSignupDtoToUser(userSignupDto);
+    }
+
+    @Benchmark
+    public User userEmailDtoToUser() {
+        return userMapper.userEmailDtoToUser(userEmailDto);
+    }
+}
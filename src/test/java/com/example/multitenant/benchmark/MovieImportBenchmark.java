@@ -0,0 +1,82 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.endpoint.dto.MovieImportReportDto;
+import com.example.multitenant.service.MovieImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures importing a csv file of {@link #ROWS} movies into a fresh tenant, as done by
+ * {@code POST /api/v1/movie/import}. Every invocation imports into a new tenant, so all runs start with an empty table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx512m")
+public class MovieImportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private Path directory;
+    private Path csv;
+    private ConfigurableApplicationContext context;
+    private MovieImportService movieImportService;
+    private DatabaseConfig databaseConfig;
+    private int tenant;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("import-benchmark");
+        csv = directory.resolve("movies.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("title,runtime,releaseDate\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("\"Movie " + i + "\"," + (90 + i % 60) + ",20" + (10 + i % 10) + "-01-01\n");
+            }
+        }
+
+        context = new SpringApplicationBuilder(MultiTenantApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        );
+
+        movieImportService = context.getBean(MovieImportService.class);
+        databaseConfig = context.getBean(DatabaseConfig.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void selectTenant() {
+        databaseConfig.setActiveDatasource("import-" + tenant++ + "@test.com");
+    }
+
+    @Benchmark
+    public MovieImportReportDto importCsv() throws IOException {
+        try (Reader reader = Files.newBufferedReader(csv)) {
+            MovieImportReportDto report = movieImportService.importMovies(reader, MovieImportService.Format.CSV);
+            if (report.getImported() != ROWS) throw new IllegalStateException("Imported " + report.getImported());
+            return report;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
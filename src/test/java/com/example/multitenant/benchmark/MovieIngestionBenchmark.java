@@ -0,0 +1,80 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.entity.Movie;
+import com.example.multitenant.service.MovieService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares saving movies one by one, each in its own transaction as done by {@code POST /api/v1/movie}, with saving
+ * them in one batched transaction as done by {@code POST /api/v1/movie/batch}. Scores are movies per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class MovieIngestionBenchmark {
+
+    private static final int MOVIES = 1000;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("ingestion-benchmark");
+        context = new SpringApplicationBuilder(MultiTenantApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        );
+
+        movieService = context.getBean(MovieService.class);
+        context.getBean(DatabaseConfig.class).setActiveDatasource("benchmark@test.com");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIES)
+    public long singleInserts() {
+        long sum = 0;
+        for (Movie movie : movies()) sum += movieService.save(movie);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIES)
+    public List<Long> batchInsert() {
+        return movieService.saveAll(movies());
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private List<Movie> movies() {
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(Movie.builder().title("Movie " + i).runtime(90L + i % 60).releaseDate(LocalDate.of(2000, 1, 1)).build());
+        }
+        return movies;
+    }
+}
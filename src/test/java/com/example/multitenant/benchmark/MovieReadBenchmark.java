@@ -0,0 +1,95 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.mapper.MovieMapper;
+import com.example.multitenant.entity.Movie;
+import com.example.multitenant.repository.MovieRepository;
+import com.example.multitenant.service.MovieService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the read path of {@code GET /api/v1/movie/{id}} before and after switching it to projections: loading the
+ * managed entity in a read-write transaction and mapping it, against reading the dto by projection in a read-only
+ * transaction. The movie cache is disabled, so every read reaches the database. Allocations per read are reported by
+ * the gc profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class MovieReadBenchmark {
+
+    private static final int MOVIES = 1000;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+    private MovieRepository movieRepository;
+    private MovieMapper movieMapper;
+    private TransactionTemplate readWrite;
+    private List<Long> ids;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("read-benchmark");
+        context = new SpringApplicationBuilder(MultiTenantApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--tenant.cache-budget=0"
+        );
+
+        movieService = context.getBean(MovieService.class);
+        movieRepository = context.getBean(MovieRepository.class);
+        movieMapper = context.getBean(MovieMapper.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        context.getBean(DatabaseConfig.class).setActiveDatasource("benchmark@test.com");
+
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(Movie.builder().title("Movie " + i).runtime(90L + i % 60).releaseDate(LocalDate.of(2000, 1, 1)).build());
+        }
+        ids = movieService.saveAll(movies);
+    }
+
+    @Benchmark
+    public MovieDto managedEntity(Cursor cursor) {
+        Long id = ids.get(cursor.next++ % MOVIES);
+        return readWrite.execute(status -> movieMapper.movieToMovieDto(movieRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public MovieDto readOnlyProjection(Cursor cursor) {
+        return movieService.findDtoById(ids.get(cursor.next++ % MOVIES));
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.config.EncoderConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BCrypt at the cost configured in {@link EncoderConfig}: hashing on signup and verifying on login. Both
+ * are expected to take the same time, which bounds the logins a single core can serve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "password123";
+
+    private final PasswordEncoder passwordEncoder = EncoderConfig.getPasswordEncoder();
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.multitenant.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.RoutingDataSource;
+import com.example.multitenant.config.TenantRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request tenant switch: setting the context and resolving the connection of the tenant.
+ * The cost is expected to stay flat regardless of the number of open tenants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingDataSourceBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int tenants;
+
+    private String[] identifiers;
+    private RoutingDataSource routingDataSource;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup
+    public void setup() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        TenantRegistry tenantRegistry = new TenantRegistry(tenants, 0, identifier -> new StubDataSource(),
+                (identifier, dataSource) -> {});
+
+        identifiers = new String[tenants];
+        for (int i = 0; i < tenants; i++) {
+            identifiers[i] = String.format("%064X", i);
+            tenantRegistry.get(identifiers[i]);
+        }
+
+        routingDataSource = new RoutingDataSource(new StubDataSource(), tenantRegistry);
+    }
+
+    @Benchmark
+    public Connection switchTenant(Cursor cursor) throws SQLException {
+        cursor.next = cursor.next + 1 == identifiers.length ? 0 : cursor.next + 1;
+
+        DatabaseConfig.DBContextHolder.setIdentifier(identifiers[cursor.next]);
+        return routingDataSource.getConnection();
+    }
+
+    /**
+     * StubDataSource: data source without any database behind it.
+     */
+    private static class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return null;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return null;
+        }
+    }
+}
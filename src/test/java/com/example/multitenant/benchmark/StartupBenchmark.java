@@ -0,0 +1,83 @@
+package com.example.multitenant.benchmark;
+
+import com.example.multitenant.MultiTenantApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time until the application is started with a database directory of synthetic tenant files, once
+ * opening tenants eagerly and once opening them lazily on first access. Eager startup is limited to
+ * {@link #EAGER_LIMIT} tenants, as every opened tenant holds its own pool and database cache and a thousand of them
+ * exhaust the default heap of the forked benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final int EAGER_LIMIT = 100;
+
+    @Param({"1000", "10000"})
+    private int tenants;
+
+    @Param({"true", "false"})
+    private boolean lazy;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        directory = Files.createTempDirectory("startup-benchmark");
+
+        Path template = directory.resolve("template.mv.db");
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:h2:file:" + directory.resolve("template").toAbsolutePath(), "admin", "admin");
+             Statement statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("src/main/resources/create.sql")));
+        }
+
+        for (int i = 0; i < tenants; i++) {
+            Files.copy(template, directory.resolve(String.format("%064X", i) + ".mv.db"));
+        }
+        Files.delete(template);
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startup() {
+        context = new SpringApplicationBuilder(MultiTenantApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.file.name=" + directory.resolve("backend.log"),
+                "--spring.datasource.name=" + directory,
+                "--spring.datasource.url=jdbc:h2:file:" + directory + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--tenant.max-open=" + (lazy ? tenants : EAGER_LIMIT),
+                "--tenant.lazy=" + lazy
+        );
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (context != null) context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.multitenant.config;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
@@ -9,7 +10,6 @@ import org.springframework.test.context.ActiveProfiles;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,26 +22,16 @@ public class DatabaseConfigTest {
 
     @Test
     @DisplayName("Creating sql file should save file to filesystem.")
-    public void creatingSqlFile_shouldSaveFileToFilesystem() throws IOException {
-        Path path = Path.of("src/main/resources/create.sql");
-
-        assertTrue(Files.exists(path));
-
-        Files.delete(path);
-        assertFalse(Files.exists(path));
-
-        databaseConfig.createDataSourceSchema(databaseConfig.generateMetadata(false));
-        assertTrue(Files.exists(path));
-
-        path = Path.of("src/main/resources/create_default.sql");
-
-        assertTrue(Files.exists(path));
-
-        Files.delete(path);
-        assertFalse(Files.exists(path));
-
-        databaseConfig.createDataSourceSchema(databaseConfig.generateMetadata(true));
-        assertTrue(Files.exists(path));
+    public void creatingSqlFile_shouldSaveFileToFilesystem(@TempDir Path directory) throws IOException {
+        Path tenant = databaseConfig.createDataSourceSchema(databaseConfig.generateMetadata(false), directory);
+        Path user = databaseConfig.createDataSourceSchema(databaseConfig.generateMetadata(true), directory);
+
+        assertAll(
+                () -> assertEquals(directory.resolve("create.sql"), tenant),
+                () -> assertTrue(Files.readString(tenant).contains("create table Movie")),
+                () -> assertEquals(directory.resolve("create_default.sql"), user),
+                () -> assertEquals(Files.readString(Path.of("src/main/resources/create_default.sql")), Files.readString(user))
+        );
     }
 
     @Test
@@ -54,13 +44,13 @@ public class DatabaseConfigTest {
         assertFalse(Files.exists(path));
         databaseConfig.setActiveDatasource(username);
 
-        Map<Object, Object> configurations = databaseConfig.getConfigurations();
-        configurations.remove(dataSourceName);
+        TenantRegistry tenantRegistry = databaseConfig.tenantRegistry();
+        tenantRegistry.evict(dataSourceName);
 
         assertTrue(Files.exists(path));
         databaseConfig.setActiveDatasource(username);
 
+        tenantRegistry.evict(dataSourceName);
         Files.delete(path);
-        databaseConfig.getConfigurations().remove(dataSourceName);
     }
 }
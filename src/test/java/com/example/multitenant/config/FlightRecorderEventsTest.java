@@ -0,0 +1,65 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.repository.MovieRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class FlightRecorderEventsTest {
+
+    @Autowired
+    private DatabaseConfig databaseConfig;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Test
+    @DisplayName("Opening and querying tenant should record its open, migrate and route events.")
+    public void openingTenant_whenRecording_shouldRecordTenantEvents() throws IOException {
+        String username = "recording@test.com";
+        String identifier = DatabaseConfig.DBContextHolder.generateDataSourceName(username);
+        Path recordingFile = Files.createTempFile("tenant-events", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(FlightRecorderEvents.TenantOpen.class);
+            recording.enable(FlightRecorderEvents.TenantMigrate.class);
+            recording.enable(FlightRecorderEvents.TenantRoute.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            databaseConfig.setActiveDatasource(username);
+            movieRepository.count();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        } finally {
+            databaseConfig.tenantRegistry().evict(identifier);
+            DatabaseConfig.DBContextHolder.setDefault();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        Files.delete(recordingFile);
+        Files.deleteIfExists(Path.of("database-test/" + identifier + ".mv.db"));
+
+        for (Class<?> type : List.of(FlightRecorderEvents.TenantOpen.class, FlightRecorderEvents.TenantMigrate.class,
+                FlightRecorderEvents.TenantRoute.class)) {
+            String name = type.getAnnotation(jdk.jfr.Name.class).value();
+            assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals(name)
+                    && identifier.equals(event.getString("tenant"))), name);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.data.MovieData;
+import com.example.multitenant.exceptionhandler.exceptions.ConflictException;
+import com.example.multitenant.repository.MovieRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "tenant.storage=schema")
+@ActiveProfiles("test")
+@DirtiesContext
+public class SchemaTenantStorageTest implements MovieData {
+
+    private static final Path DIRECTORY = createDirectory();
+
+    @Autowired
+    private DatabaseConfig databaseConfig;
+
+    @Autowired
+    private TenantStorageStrategy tenantStorage;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @DynamicPropertySource
+    public static void databaseProperties(DynamicPropertyRegistry registry) {
+        // the shared database of all schemas lives in its own directory, so every run starts without schemas
+        registry.add("spring.datasource.name", DIRECTORY::toString);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + DIRECTORY + "/db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    @AfterEach
+    public void afterEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @AfterAll
+    public static void afterAll() throws IOException {
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+    }
+
+    @Test
+    @DisplayName("Storing tenants as schemas should keep their data separated.")
+    public void storingTenantsAsSchemas_shouldKeepDataSeparated() throws IOException {
+        assertTrue(tenantStorage instanceof SchemaTenantStorage);
+
+        databaseConfig.setActiveDatasource("schema-first");
+        movieRepository.save(getMovie());
+        assertEquals(1, movieRepository.count());
+
+        databaseConfig.setActiveDatasource("schema-second");
+        assertEquals(0, movieRepository.count());
+
+        String oldIdentifier = DatabaseConfig.DBContextHolder.generateDataSourceName("schema-first");
+        String newIdentifier = DatabaseConfig.DBContextHolder.generateDataSourceName("schema-renamed");
+        assertTrue(tenantStorage.list().contains(oldIdentifier));
+
+        databaseConfig.renameDatasource("schema-first", "schema-renamed");
+        assertFalse(tenantStorage.list().contains(oldIdentifier));
+        assertTrue(tenantStorage.list().contains(newIdentifier));
+
+        databaseConfig.setActiveDatasource("schema-renamed");
+        assertEquals(1, movieRepository.count());
+    }
+
+    @Test
+    @DisplayName("Renaming schema onto an existing schema should throw conflict.")
+    public void storedSchemas_whenRenamingOntoExisting_shouldThrowConflict() {
+        databaseConfig.setActiveDatasource("conflict-first");
+        databaseConfig.setActiveDatasource("conflict-second");
+
+        assertThrows(ConflictException.class, () -> databaseConfig.renameDatasource("conflict-first", "conflict-second"));
+    }
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("schema-storage");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.multitenant.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantCacheTest {
+
+    private final TenantCache<Long, String> cache = new TenantCache<>(1024, 60000, (key, value) -> 1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    public void afterEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @Test
+    @DisplayName("Getting value twice within a tenant should load it once.")
+    public void activeTenant_whenGettingValue_shouldCacheValue() {
+        DatabaseConfig.DBContextHolder.setIdentifier("tenant");
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertAll(
+                () -> assertEquals(1, loads.get()),
+                () -> assertEquals(Optional.of("1"), cache.getIfPresent(1L))
+        );
+    }
+
+    @Test
+    @DisplayName("Using cache without an active tenant should load values without caching them.")
+    public void noTenant_whenUsingCache_shouldBypassCache() {
+        DatabaseConfig.DBContextHolder.setIdentifier(null);
+
+        Optional<String> first = cache.get(1L, this::load);
+        Optional<String> second = cache.get(1L, this::load);
+        cache.invalidate(1L);
+
+        assertAll(
+                () -> assertEquals(Optional.of("1"), first),
+                () -> assertEquals(Optional.of("1"), second),
+                () -> assertEquals(2, loads.get()),
+                () -> assertTrue(cache.getIfPresent(1L).isEmpty()),
+                () -> assertTrue(cache.getStats().isEmpty())
+        );
+    }
+
+    private Optional<String> load(Long key) {
+        loads.incrementAndGet();
+        return Optional.of(String.valueOf(key));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.service.MovieService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TenantMetricsTest {
+
+    private static final Map<String, Integer> ACTIVE = Map.of("a", 3, "b", 2, "c", 1);
+
+    private final TenantRegistry tenantRegistry = new TenantRegistry(10, 0, TenantMetricsTest::pool, (identifier, dataSource) -> {});
+    private TenantMetrics tenantMetrics;
+
+    @AfterEach
+    public void afterEach() {
+        tenantMetrics.destroy();
+    }
+
+    @Test
+    @DisplayName("Pool connections should be tagged by the hottest tenants and summed up for all others.")
+    public void openTenants_whenScraping_shouldTagHottestTenants_andSumUpOthers() {
+        DatabaseProperties databaseProperties = mock(DatabaseProperties.class);
+        when(databaseProperties.getTenantMetricsTopTenants()).thenReturn(1);
+        when(databaseProperties.getTenantMetricsRefresh()).thenReturn(60000L);
+
+        tenantRegistry.get("a");
+        tenantRegistry.get("a");
+        tenantRegistry.get("b");
+        tenantRegistry.get("c");
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MovieService movieService = mock(MovieService.class);
+        when(movieService.getCacheStats()).thenReturn(Map.of(
+                "a", CacheStats.of(3, 1, 0, 0, 0, 0, 0),
+                "b", CacheStats.of(1, 1, 0, 0, 0, 0, 0),
+                "c", CacheStats.of(0, 2, 0, 0, 0, 0, 0)));
+
+        tenantMetrics = new TenantMetrics(tenantRegistry, movieService, databaseProperties);
+        tenantMetrics.bindTo(registry);
+
+        String tag = tenantMetrics.getTag("a");
+        assertAll(
+                () -> assertNotEquals("a", tag),
+                () -> assertEquals(tag, tenantMetrics.getTag("a")),
+                () -> assertEquals(3, registry.get("tenant.open").gauge().value()),
+                () -> assertEquals(3, registry.get("tenant.pool.connections").tags("state", "active", "tenant", tag).gauge().value()),
+                () -> assertEquals(3, registry.get("tenant.pool.connections").tags("state", "active", "tenant", "other").gauge().value()),
+                () -> assertEquals(2, registry.get("tenant.pool.connections").tags("state", "active").gauges().size()),
+                () -> assertEquals(0.75, registry.get("tenant.cache.hit.ratio").tags("tenant", tag).gauge().value()),
+                () -> assertEquals(0.25, registry.get("tenant.cache.hit.ratio").tags("tenant", "other").gauge().value())
+        );
+    }
+
+    private static HikariDataSource pool(String identifier) {
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(pool.getActiveConnections()).thenReturn(ACTIVE.get(identifier));
+
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        return dataSource;
+    }
+}
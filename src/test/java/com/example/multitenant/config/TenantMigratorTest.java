@@ -0,0 +1,96 @@
+package com.example.multitenant.config;
+
+import com.example.multitenant.exceptionhandler.exceptions.MigrationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantMigratorTest {
+
+    private TenantMigrator migrator;
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        migrator = new TenantMigrator(new PathMatchingResourcePatternResolver(), "classpath*:db/tenant-test/*.sql");
+
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new DefaultResourceLoader().getResource("classpath:create.sql")).execute(dataSource);
+    }
+
+    @Test
+    @DisplayName("Migrating tenant should baseline it and apply pending migrations once.")
+    public void baselineTenant_whenMigrating_shouldApplyPendingMigrationsOnce() throws SQLException {
+        assertEquals(3, migrator.getLatestVersion());
+        assertEquals(2, migrator.migrate("tenant", dataSource));
+        assertEquals(0, migrator.migrate("tenant", dataSource));
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version), COUNT(*) FROM schema_version")) {
+            resultSet.next();
+
+            assertEquals(3, resultSet.getInt(1));
+            assertEquals(3, resultSet.getInt(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Failing migration should keep tenant at last successful version.")
+    public void brokenTenant_whenMigrating_shouldKeepLastSuccessfulVersion() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_movie_title ON Movie (title)");
+        }
+
+        assertThrows(MigrationException.class, () -> migrator.migrate("tenant", dataSource));
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            resultSet.next();
+
+            assertEquals(2, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Migrating partially migrated tenant should complete its migrations.")
+    public void partiallyMigratedTenant_whenMigrating_shouldCompleteMigrations() throws IOException, SQLException {
+        TenantMigrator tenantMigrator = new TenantMigrator(new PathMatchingResourcePatternResolver(), "classpath*:db/tenant/*.sql");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE movie_seq START WITH 1 INCREMENT BY 50");
+            statement.execute("ALTER TABLE Movie ADD COLUMN version BIGINT DEFAULT 0 NOT NULL");
+        }
+
+        assertEquals(tenantMigrator.getLatestVersion() - 1, tenantMigrator.migrate("tenant", dataSource));
+    }
+
+    @Test
+    @DisplayName("Migrating many tenants should report failures per tenant.")
+    public void manyTenants_whenMigratingAll_shouldReportFailuresPerTenant() {
+        TenantMigrator.Progress progress = migrator.migrateAll(List.of("a", "b", "c"), identifier -> {
+            if (identifier.equals("b")) throw new MigrationException("broken", null);
+        }, 2);
+
+        assertAll(
+                () -> assertEquals(3, progress.getTotal()),
+                () -> assertEquals(3, progress.getCompleted()),
+                () -> assertEquals(List.of("b"), List.copyOf(progress.getFailures().keySet())),
+                () -> assertSame(progress, migrator.getProgress())
+        );
+    }
+}
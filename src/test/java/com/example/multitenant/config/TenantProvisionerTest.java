@@ -0,0 +1,66 @@
+package com.example.multitenant.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantProvisionerTest {
+
+    private static final byte[] TEMPLATE = "template".getBytes();
+
+    @TempDir
+    Path directory;
+
+    private final Consumer<Path> templateBuilder = template -> {
+        try {
+            Files.write(Path.of(template + TenantProvisioner.EXTENSION), TEMPLATE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    };
+
+    @Test
+    @DisplayName("Provisioning tenant should claim spare file when one is ready.")
+    public void readySpare_whenProvisioning_shouldClaimSpare() throws Exception {
+        try (TenantProvisioner provisioner = new TenantProvisioner(directory.resolve("provisioning"), 2, templateBuilder)) {
+            awaitSpares(provisioner, 2);
+
+            Path target = directory.resolve("tenant" + TenantProvisioner.EXTENSION);
+            provisioner.provision(target);
+
+            assertAll(
+                    () -> assertArrayEquals(TEMPLATE, Files.readAllBytes(target)),
+                    () -> assertEquals(1, provisioner.getClaimCount()),
+                    () -> assertEquals(0, provisioner.getCopyCount())
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Provisioning tenant without spare files should copy template.")
+    public void noSpares_whenProvisioning_shouldCopyTemplate() throws IOException {
+        try (TenantProvisioner provisioner = new TenantProvisioner(directory.resolve("provisioning"), 0, templateBuilder)) {
+            Path target = directory.resolve("tenant" + TenantProvisioner.EXTENSION);
+            provisioner.provision(target);
+
+            assertAll(
+                    () -> assertArrayEquals(TEMPLATE, Files.readAllBytes(target)),
+                    () -> assertEquals(0, provisioner.getClaimCount()),
+                    () -> assertEquals(1, provisioner.getCopyCount())
+            );
+        }
+    }
+
+    private void awaitSpares(TenantProvisioner provisioner, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && provisioner.getSpareCount() < count; i++) Thread.sleep(10);
+        assertEquals(count, provisioner.getSpareCount());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.multitenant.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class TenantRegistryTest {
+
+    private final List<String> closed = new CopyOnWriteArrayList<>();
+
+    private TenantRegistry createRegistry(int maxOpen) {
+        return new TenantRegistry(maxOpen, 0, identifier -> mock(DataSource.class),
+                (identifier, dataSource) -> closed.add(identifier));
+    }
+
+    @Test
+    @DisplayName("Getting open tenant should return same datasource and count a hit.")
+    public void openTenant_whenGettingTenant_shouldReturnSameDataSource() {
+        TenantRegistry registry = createRegistry(10);
+
+        DataSource first = registry.get("a");
+        DataSource second = registry.get("a");
+
+        assertAll(
+                () -> assertSame(first, second),
+                () -> assertEquals(1, registry.getOpenCount()),
+                () -> assertEquals(1, registry.getHitCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Exceeding capacity should close least recently used tenant.")
+    public void fullRegistry_whenOpeningTenant_shouldEvictLeastRecentlyUsed() throws InterruptedException {
+        TenantRegistry registry = createRegistry(2);
+
+        registry.get("a");
+        registry.get("b");
+        registry.get("a");
+        registry.get("c");
+        awaitClosed(1);
+
+        assertAll(
+                () -> assertEquals(2, registry.size()),
+                () -> assertEquals(List.of("b"), closed),
+                () -> assertEquals(1, registry.getEvictionCount()),
+                () -> assertTrue(registry.contains("a")),
+                () -> assertTrue(registry.contains("c"))
+        );
+    }
+
+    @Test
+    @DisplayName("Exceeding capacity by many tenants should close all least recently used tenants at once.")
+    public void fullRegistry_whenOpeningManyTenants_shouldEvictExcess() throws InterruptedException {
+        TenantRegistry registry = createRegistry(3);
+
+        for (String identifier : List.of("a", "b", "c", "d", "e", "f", "g")) registry.get(identifier);
+        awaitClosed(4);
+
+        assertAll(
+                () -> assertEquals(3, registry.size()),
+                () -> assertTrue(closed.containsAll(List.of("a", "b", "c"))),
+                () -> assertEquals(4, registry.getEvictionCount()),
+                () -> assertTrue(registry.contains("g"))
+        );
+    }
+
+    @Test
+    @DisplayName("Running action on closed tenants should skip open ones and neither open nor evict tenants.")
+    public void fullRegistry_whenRunningIfClosed_shouldSkipOpenTenants_andKeepOthersOpen() {
+        TenantRegistry registry = createRegistry(1);
+        registry.get("a");
+
+        List<String> visited = new ArrayList<>();
+        boolean ranOnOpen = registry.runIfClosed("a", () -> visited.add("a"));
+        boolean ranOnClosed = registry.runIfClosed("b", () -> {
+            visited.add("b");
+            registry.get("a");
+        });
+
+        assertAll(
+                () -> assertFalse(ranOnOpen),
+                () -> assertTrue(ranOnClosed),
+                () -> assertEquals(List.of("b"), visited),
+                () -> assertEquals(1, registry.getOpenCount()),
+                () -> assertTrue(registry.contains("a")),
+                () -> assertFalse(registry.contains("b")),
+                () -> assertTrue(closed.isEmpty())
+        );
+    }
+
+    @Test
+    @DisplayName("Evicting tenant while an action runs on it should keep the tenant reserved.")
+    public void reservedTenant_whenEvicting_shouldKeepReservation() {
+        TenantRegistry registry = createRegistry(10);
+        List<String> notified = new ArrayList<>();
+        registry.addCloseListener(notified::add);
+
+        List<Boolean> reserved = new ArrayList<>();
+        registry.runIfClosed("a", () -> {
+            registry.evict("a");
+            reserved.add(registry.contains("a"));
+        });
+
+        assertAll(
+                () -> assertEquals(List.of(true), reserved),
+                () -> assertFalse(registry.contains("a")),
+                () -> assertTrue(notified.isEmpty())
+        );
+    }
+
+    @Test
+    @DisplayName("Getting evicted tenant should reopen it.")
+    public void evictedTenant_whenGettingTenant_shouldReopenIt() {
+        TenantRegistry registry = createRegistry(10);
+
+        DataSource first = registry.get("a");
+        registry.evict("a");
+        DataSource second = registry.get("a");
+
+        assertAll(
+                () -> assertNotSame(first, second),
+                () -> assertEquals(List.of("a"), closed),
+                () -> assertEquals(2, registry.getOpenCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Closing tenant should notify close listeners.")
+    public void openTenant_whenEvicting_shouldNotifyCloseListeners() {
+        TenantRegistry registry = createRegistry(10);
+        List<String> notified = new ArrayList<>();
+        registry.addCloseListener(notified::add);
+
+        registry.get("a");
+        registry.get("b");
+        registry.evict("a");
+
+        assertEquals(List.of("a"), notified);
+    }
+
+    @Test
+    @DisplayName("Getting hottest tenants should order them by requests.")
+    public void openTenants_whenGettingHottest_shouldOrderByRequests() {
+        TenantRegistry registry = createRegistry(10);
+
+        registry.get("a");
+        registry.get("b");
+        registry.get("b");
+        registry.get("c");
+        registry.get("c");
+        registry.get("c");
+
+        assertEquals(List.of("c", "b"), registry.hottest(2));
+    }
+
+    private void awaitClosed(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && closed.size() < count; i++) Thread.sleep(10);
+        assertEquals(count, closed.size());
+    }
+}
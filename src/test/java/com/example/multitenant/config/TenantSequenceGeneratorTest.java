@@ -0,0 +1,35 @@
+package com.example.multitenant.config;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class TenantSequenceGeneratorTest {
+
+    @AfterEach
+    public void afterEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @Test
+    @DisplayName("Generating id without an active tenant should throw an exception without touching the session.")
+    public void noTenant_whenGeneratingId_shouldThrowException() {
+        Properties params = new Properties();
+        params.setProperty("sequence_name", "movie_seq");
+        TenantSequenceGenerator generator = new TenantSequenceGenerator();
+        generator.configure(null, params, null);
+        SharedSessionContractImplementor session = mock(SharedSessionContractImplementor.class);
+        DatabaseConfig.DBContextHolder.setIdentifier(null);
+
+        assertThrows(IdentifierGenerationException.class, () -> generator.generate(session, new Object()));
+        verifyNoInteractions(session);
+    }
+}
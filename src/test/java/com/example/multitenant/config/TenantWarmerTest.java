@@ -0,0 +1,41 @@
+package com.example.multitenant.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TenantWarmerTest {
+
+    @Autowired
+    private DatabaseConfig databaseConfig;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @Autowired
+    private TenantWarmer tenantWarmer;
+
+    @Test
+    @DisplayName("Warming up should reopen tenants which have been hot before shutdown.")
+    public void persistedHotTenant_whenWarmingUp_shouldReopenTenant() throws InterruptedException {
+        String identifier = DatabaseConfig.DBContextHolder.generateDataSourceName("warmer@test.com");
+        databaseConfig.setActiveTenant(identifier);
+        DatabaseConfig.DBContextHolder.setDefault();
+
+        tenantWarmer.persistHotTenants();
+        assertTrue(tenantWarmer.readHotTenants().contains(identifier));
+
+        tenantRegistry.evict(identifier);
+        assertFalse(tenantRegistry.contains(identifier));
+
+        tenantWarmer.warmUp();
+        for (int i = 0; i < 100 && !tenantRegistry.contains(identifier); i++) Thread.sleep(20);
+        assertTrue(tenantRegistry.contains(identifier));
+    }
+}
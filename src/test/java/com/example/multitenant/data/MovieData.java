@@ -9,6 +9,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.Collections;
 
 public interface MovieData {
 
@@ -53,6 +54,17 @@ public interface MovieData {
         return getMovieMapper().writeValueAsString(getMovie());
     }
 
+    /**
+     * Builds a json array of movies.
+     *
+     * @param count number of movies.
+     * @return json array containing details about movies.
+     * @throws JsonProcessingException if something goes wrong during parsing json.
+     */
+    default String getMovieDtosJson(int count) throws JsonProcessingException {
+        return getMovieMapper().writeValueAsString(Collections.nCopies(count, getMovie()));
+    }
+
     /**
      * Builds a movie dto;
      *
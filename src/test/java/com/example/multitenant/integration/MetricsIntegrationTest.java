@@ -0,0 +1,87 @@
+package com.example.multitenant.integration;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.data.UserData;
+import com.example.multitenant.repository.UserRepository;
+import com.example.multitenant.security.JwtTokenizer;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+public class MetricsIntegrationTest implements UserData {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenizer jwtTokenizer;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void beforeEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+        userRepository.deleteAll();
+        userRepository.save(getUser());
+    }
+
+    @AfterEach
+    public void afterEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Scraping metrics on the management port without token should expose tenant and authorization metrics.")
+    public void servedRequest_whenScrapingMetrics_shouldExposeTenantAndAuthorizationMetrics() throws Exception {
+        mockMvc.perform(get("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"))))
+                .andExpect(status().isOk());
+
+        ResponseEntity<String> scraped = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+        String metrics = scraped.getBody();
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, scraped.getStatusCode()),
+                () -> assertTrue(metrics.contains("tenant_open ")),
+                () -> assertTrue(metrics.contains("tenant_pool_connections{state=\"active\",tenant=\"other\",}")),
+                () -> assertTrue(metrics.contains("tenant_activate_seconds_count")),
+                () -> assertTrue(metrics.contains("tenant_cache_hit_ratio{cache=\"movie\",tenant=\"other\",}")),
+                () -> assertTrue(metrics.contains("auth_jwt_verify_seconds_count")),
+                () -> assertTrue(metrics.contains("cache_gets_total{cache=\"jwt.claims\",result=\"miss\",}")),
+                () -> assertTrue(metrics.contains("user_exists_by_email_total"))
+        );
+    }
+
+    @Test
+    @DisplayName("Scraping metrics on the application port should return status not found.")
+    public void applicationPort_whenScrapingMetrics_shouldReturnStatusNotFound() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isNotFound());
+    }
+}
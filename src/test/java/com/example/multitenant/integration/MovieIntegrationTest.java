@@ -1,12 +1,21 @@
 package com.example.multitenant.integration;
 
 import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.SecurityProperties;
 import com.example.multitenant.data.MovieData;
 import com.example.multitenant.data.UserData;
 import com.example.multitenant.endpoint.dto.MovieDto;
+import com.example.multitenant.endpoint.dto.MovieImportReportDto;
+import com.example.multitenant.endpoint.dto.MoviePageDto;
+import com.example.multitenant.endpoint.dto.MovieSearchResultDto;
+import com.example.multitenant.endpoint.dto.MovieSort;
+import com.example.multitenant.entity.Movie;
 import com.example.multitenant.repository.MovieRepository;
 import com.example.multitenant.repository.UserRepository;
 import com.example.multitenant.security.JwtTokenizer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -14,8 +23,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
-import java.util.Collections;
+import java.util.*;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +42,9 @@ public class MovieIntegrationTest implements MovieData, UserData {
     @Autowired
     private JwtTokenizer jwtTokenizer;
 
+    @Autowired
+    private SecurityProperties securityProperties;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -75,6 +88,107 @@ public class MovieIntegrationTest implements MovieData, UserData {
         assertEquals(id, dto.getId());
     }
 
+    @Test
+    @DisplayName("Getting unchanged entity with its ETag should return status not modified until it is updated.")
+    public void storedEntity_whenGettingEntity_withCurrentETag_shouldReturnStatusNotModified() throws Exception {
+        String token = jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"));
+        MvcResult stored = mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", token)
+                .contentType("application/json")
+                .content(getMovieDtoJson()))
+                .andExpect(status().isOk()).andReturn();
+
+        Long id = Long.parseLong(stored.getResponse().getContentAsString());
+
+        String eTag = mockMvc.perform(get("/api/v1/movie/{id}", id).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Authorization"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/movie/{id}", id).header("Authorization", token).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Authorization"))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", token)
+                .contentType("application/json")
+                .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                        .id(id).version(0L).title("Changed").runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                .andExpect(status().isOk());
+
+        String changedETag = mockMvc.perform(get("/api/v1/movie/{id}", id).header("Authorization", token).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Changed"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, changedETag);
+    }
+
+    @Test
+    @DisplayName("Updating entity with a stale version should return status conflict.")
+    public void storedEntity_whenUpdatingEntity_withStaleVersion_shouldReturnStatusConflict() throws Exception {
+        String token = jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"));
+        Long id = movieRepository.save(getMovie()).getId();
+
+        for (long version = 0; version < 2; version++) {
+            mockMvc.perform(post("/api/v1/movie")
+                    .header("Authorization", token)
+                    .contentType("application/json")
+                    .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                            .id(id).version(0L).title("Changed").runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                    .andExpect(version == 0 ? status().isOk() : status().isConflict());
+        }
+    }
+
+    @Test
+    @DisplayName("Updating non-stored entity should return status not found.")
+    public void storedNothing_whenUpdatingEntity_shouldReturnStatusNotFound() throws Exception {
+        movieRepository.deleteAll();
+
+        mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/json")
+                .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                        .id(ID).version(0L).title("Changed").runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Updating changed entity without a version should overwrite it.")
+    public void changedEntity_whenUpdatingEntity_withoutVersion_shouldOverwriteEntity() throws Exception {
+        Movie stored = movieRepository.save(getMovie());
+        stored.setTitle("Changed elsewhere");
+        movieRepository.save(stored);
+
+        mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/json")
+                .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                        .id(stored.getId()).title("Changed").runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                .andExpect(status().isOk());
+
+        assertEquals("Changed", movieRepository.findById(stored.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Listing unchanged page with its ETag should return status not modified.")
+    public void storedEntities_whenListingPage_withCurrentETag_shouldReturnStatusNotModified() throws Exception {
+        for (int i = 0; i < 3; i++) movieRepository.save(getMovie());
+        String token = jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"));
+
+        String eTag = mockMvc.perform(get("/api/v1/movie").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/movie").header("Authorization", token).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        movieRepository.save(getMovie());
+
+        mockMvc.perform(get("/api/v1/movie").header("Authorization", token).header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @DisplayName("Trying to get non-stored entity should throw an exception and status not found.")
     public void storedNothing_whenGettingEntity_shouldThrowException_andStatusNotFound() throws Exception {
@@ -95,6 +209,304 @@ public class MovieIntegrationTest implements MovieData, UserData {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Saving entities at once should return their ids and status ok.")
+    public void storedNothing_whenSavingMovies_shouldReturnIds_andStatusIsOk() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/movie/batch")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/json")
+                .content(getMovieDtosJson(100)))
+                .andExpect(status().isOk()).andReturn();
+
+        Long[] ids = getMovieMapper().readValue(result.getResponse().getContentAsString(), Long[].class);
+
+        assertAll(
+                () -> assertEquals(100, ids.length),
+                () -> assertEquals(100, movieRepository.count())
+        );
+    }
+
+    @Test
+    @DisplayName("Following continuation tokens should list all entities in order.")
+    public void storedEntities_whenListingPages_shouldReturnAllEntitiesInOrder() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            movieRepository.save(Movie.builder().title(TITLE).runtime(RUNTIME).releaseDate(RELEASE_DATE.minusDays(i)).build());
+        }
+
+        for (MovieSort sort : MovieSort.values()) {
+            List<MovieDto> movies = new ArrayList<>();
+            String token = null;
+            do {
+                MockHttpServletRequestBuilder request = get("/api/v1/movie")
+                        .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                        .param("sort", sort.name())
+                        .param("size", "2");
+                if (token != null) request.param("token", token);
+
+                MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+                MoviePageDto page = getMovieMapper().readValue(result.getResponse().getContentAsString(), MoviePageDto.class);
+
+                assertTrue(page.getMovies().size() <= 2);
+                movies.addAll(page.getMovies());
+                token = page.getNext();
+            } while (token != null);
+
+            Comparator<MovieDto> order = sort == MovieSort.ID
+                    ? Comparator.comparing(MovieDto::getId)
+                    : Comparator.comparing(MovieDto::getReleaseDate).thenComparing(MovieDto::getId);
+            List<MovieDto> sorted = new ArrayList<>(movies);
+            sorted.sort(order);
+
+            assertAll(
+                    () -> assertEquals(5, movies.size()),
+                    () -> assertEquals(ids(sorted), ids(movies))
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Searching titles should rank exact and multiple word matches first and page the results.")
+    public void storedEntities_whenSearching_shouldReturnRankedPages() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String title : List.of("Quasar Nights", "The Quasarian", "Quasar", "Nights of the Quasar")) {
+            MvcResult result = mockMvc.perform(post("/api/v1/movie")
+                    .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                    .contentType("application/json")
+                    .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                            .title(title).runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                    .andExpect(status().isOk()).andReturn();
+            ids.add(Long.parseLong(result.getResponse().getContentAsString()));
+        }
+
+        List<MovieDto> movies = new ArrayList<>();
+        for (int page = 0; page < 2; page++) {
+            MvcResult result = mockMvc.perform(get("/api/v1/movie/search")
+                    .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                    .param("q", "quasar night")
+                    .param("page", String.valueOf(page))
+                    .param("size", "2"))
+                    .andExpect(status().isOk()).andReturn();
+            MovieSearchResultDto found = getMovieMapper().readValue(result.getResponse().getContentAsString(), MovieSearchResultDto.class);
+
+            assertEquals(4, found.getTotal());
+            movies.addAll(found.getMovies());
+        }
+
+        assertEquals(List.of(ids.get(0), ids.get(3), ids.get(2), ids.get(1)), ids(movies));
+    }
+
+    @Test
+    @DisplayName("Searching after removing an entity should no longer count it.")
+    public void removedEntity_whenSearching_shouldNotMatch() throws Exception {
+        String token = jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"));
+        List<Long> ids = new ArrayList<>();
+        for (String title : List.of("Pulsar", "Pulsar Two")) {
+            MvcResult result = mockMvc.perform(post("/api/v1/movie")
+                    .header("Authorization", token)
+                    .contentType("application/json")
+                    .content(getMovieMapper().writeValueAsString(MovieDto.builder()
+                            .title(title).runtime(RUNTIME).releaseDate(RELEASE_DATE).build())))
+                    .andExpect(status().isOk()).andReturn();
+            ids.add(Long.parseLong(result.getResponse().getContentAsString()));
+        }
+
+        mockMvc.perform(get("/api/v1/movie/search").header("Authorization", token).param("q", "pulsar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+
+        movieRepository.deleteById(ids.get(1));
+
+        mockMvc.perform(get("/api/v1/movie/search").header("Authorization", token).param("q", "pulsar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.movies[0].id").value(ids.get(0)));
+    }
+
+    @Test
+    @DisplayName("Exporting entities should stream one json object per line.")
+    public void storedEntities_whenExporting_shouldReturnNdjson() throws Exception {
+        for (int i = 0; i < 3; i++) movieRepository.save(getMovie());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/movie/export")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn();
+
+        String content = result.getResponse().getContentAsString();
+        String[] lines = content.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(content.endsWith("}\n"));
+        for (String line : lines) assertEquals(TITLE, getMovieDto(line).getTitle());
+    }
+
+    @Test
+    @DisplayName("Exporting empty catalog should return an empty body.")
+    public void storedNothing_whenExporting_shouldReturnEmptyBody() throws Exception {
+        mockMvc.perform(get("/api/v1/movie/export")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Importing csv should save valid rows and report invalid ones by line.")
+    public void csvWithInvalidRow_whenImporting_shouldSaveValidRows_andReportInvalidRow() throws Exception {
+        String csv = "title,runtime,releaseDate\n" +
+                "\"Movie, The\",120,2020-01-01\n" +
+                "Broken,abc,2020-01-01\n" +
+                "Other,90,2021-05-05\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/movie/import")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isOk()).andReturn();
+
+        MovieImportReportDto report = getMovieMapper().readValue(result.getResponse().getContentAsString(), MovieImportReportDto.class);
+
+        assertAll(
+                () -> assertEquals(2, report.getImported()),
+                () -> assertEquals(1, report.getFailed()),
+                () -> assertEquals(3, report.getErrors().get(0).getLine()),
+                () -> assertEquals(2, movieRepository.count())
+        );
+    }
+
+    @Test
+    @DisplayName("Importing ndjson should save valid rows and report invalid ones by line.")
+    public void ndjsonWithInvalidRow_whenImporting_shouldSaveValidRows_andReportInvalidRow() throws Exception {
+        String ndjson = getMovieDtoJson() + "\n{\"title\":\"\",\"runtime\":1,\"releaseDate\":\"2020-01-01\"}\n" + getMovieDtoJson();
+
+        MvcResult result = mockMvc.perform(post("/api/v1/movie/import")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(status().isOk()).andReturn();
+
+        MovieImportReportDto report = getMovieMapper().readValue(result.getResponse().getContentAsString(), MovieImportReportDto.class);
+
+        assertAll(
+                () -> assertEquals(2, report.getImported()),
+                () -> assertEquals(1, report.getFailed()),
+                () -> assertEquals(2, report.getErrors().get(0).getLine())
+        );
+    }
+
+    @Test
+    @DisplayName("Importing a line beyond the maximum length should report it and continue with the next line.")
+    public void ndjsonWithOverlongLine_whenImporting_shouldReportLine_andSaveOtherRows() throws Exception {
+        String ndjson = "x".repeat(100_000) + "\r\n" + getMovieDtoJson() + "\r\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/movie/import")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(status().isOk()).andReturn();
+
+        MovieImportReportDto report = getMovieMapper().readValue(result.getResponse().getContentAsString(), MovieImportReportDto.class);
+
+        assertAll(
+                () -> assertEquals(1, report.getImported()),
+                () -> assertEquals(1, report.getFailed()),
+                () -> assertEquals(1, report.getErrors().get(0).getLine())
+        );
+    }
+
+    @Test
+    @DisplayName("Importing lines of exactly the maximum length with CRLF should save them and report longer ones.")
+    public void ndjsonWithLinesAtMaximumLength_whenImporting_withCrlf_shouldSaveRows_andReportLongerLine() throws Exception {
+        String json = getMovieDtoJson();
+        String atMaximum = json + " ".repeat(4096 - json.length());
+        String ndjson = atMaximum + "\r\n" + atMaximum + " \r\n" + atMaximum + "\r\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/movie/import")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(status().isOk()).andReturn();
+
+        MovieImportReportDto report = getMovieMapper().readValue(result.getResponse().getContentAsString(), MovieImportReportDto.class);
+
+        assertAll(
+                () -> assertEquals(2, report.getImported()),
+                () -> assertEquals(1, report.getFailed()),
+                () -> assertEquals(2, report.getErrors().get(0).getLine())
+        );
+    }
+
+    @Test
+    @DisplayName("Listing entities with invalid continuation token should return status bad request.")
+    public void invalidToken_whenListingPage_shouldReturnStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .param("token", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Saving entity with token lacking the tenant claim should return status ok.")
+    public void storedNothing_whenSavingMovie_withLegacyToken_shouldReturnStatusOk() throws Exception {
+        String token = securityProperties.getAuthTokenPrefix() + Jwts.builder()
+                .signWith(Keys.hmacShaKeyFor(securityProperties.getJwtSecret().getBytes()), SignatureAlgorithm.HS512)
+                .setSubject(EMAIL)
+                .setExpiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationTime()))
+                .claim("rol", Collections.singletonList("ROLE_USER"))
+                .compact();
+
+        mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", token)
+                .contentType("application/json")
+                .content(getMovieDtoJson()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Reusing token should serve its claims from the cache.")
+    public void storedEntity_whenReusingToken_shouldHitClaimsCache() throws Exception {
+        String token = jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER"));
+        long hits = 0;
+
+        for (int i = 0; i < 2; i++) {
+            hits = jwtTokenizer.getClaimsCacheStats().hitCount();
+            mockMvc.perform(post("/api/v1/movie")
+                    .header("Authorization", token)
+                    .contentType("application/json")
+                    .content(getMovieDtoJson()))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(hits + 1, jwtTokenizer.getClaimsCacheStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Requesting timing should return the duration of every phase in the Server-Timing header.")
+    public void storedNothing_whenSavingMovie_withTimingHeader_shouldReturnServerTiming() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .header(securityProperties.getTimingHeader(), "true")
+                .contentType("application/json")
+                .content(getMovieDtoJson()))
+                .andExpect(status().isOk()).andReturn();
+
+        String timing = result.getResponse().getHeader("Server-Timing");
+        assertNotNull(timing);
+        for (String phase : List.of("jwt", "user", "hash", "tenant", "app")) {
+            assertTrue(timing.contains(phase + ";dur="), timing);
+        }
+    }
+
+    @Test
+    @DisplayName("Not requesting timing should return no Server-Timing header.")
+    public void storedNothing_whenSavingMovie_withoutTimingHeader_shouldReturnNoServerTiming() throws Exception {
+        mockMvc.perform(post("/api/v1/movie")
+                .header("Authorization", jwtTokenizer.createToken(EMAIL, Collections.singletonList("ROLE_USER")))
+                .contentType("application/json")
+                .content(getMovieDtoJson()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
     @Test
     @DisplayName("Trying to reach endpoint with invalid token should return status unauthorized.")
     public void storedNothing_orEntity_whenReachingEndpoint_withInvalidToken_shouldThrowException() throws Exception {
@@ -114,4 +526,10 @@ public class MovieIntegrationTest implements MovieData, UserData {
                 .content(getMovieDtoJson()))
                 .andExpect(status().isUnauthorized());
     }
+
+    private List<Long> ids(List<MovieDto> movies) {
+        List<Long> ids = new ArrayList<>();
+        movies.forEach(movie -> ids.add(movie.getId()));
+        return ids;
+    }
 }
@@ -0,0 +1,112 @@
+package com.example.multitenant.security;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.DatabaseProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TenantBulkheadTest {
+
+    private static final String TENANT = DatabaseConfig.DBContextHolder.generateDataSourceName("bulkhead@test.com");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void afterEach() {
+        release.countDown();
+        executor.shutdownNow();
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @Test
+    @DisplayName("Exceeding in-flight requests and queue of a tenant should return status too many requests.")
+    public void fullBulkhead_whenFiltering_shouldReturnStatusTooManyRequests() throws Exception {
+        TenantBulkhead bulkhead = new TenantBulkhead(properties(1, 0, 1000L));
+        Future<Integer> holding = executor.submit(() -> filter(bulkhead, true));
+        awaitInFlight(bulkhead, 1);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        DatabaseConfig.DBContextHolder.setIdentifier(TENANT);
+        bulkhead.doFilter(new MockHttpServletRequest(), rejected, (request, response) -> fail("Request should not pass"));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+
+        release.countDown();
+        assertEquals(200, holding.get(5, TimeUnit.SECONDS));
+        assertEquals(200, filter(bulkhead, false));
+    }
+
+    @Test
+    @DisplayName("Queued request of a tenant should pass once an in-flight request is done.")
+    public void busyBulkhead_whenQueueing_shouldPassAfterRelease() throws Exception {
+        TenantBulkhead bulkhead = new TenantBulkhead(properties(1, 1, 5000L));
+        Future<Integer> holding = executor.submit(() -> filter(bulkhead, true));
+        awaitInFlight(bulkhead, 1);
+
+        Future<Integer> queued = executor.submit(() -> filter(bulkhead, false));
+        Thread.sleep(100);
+        assertFalse(queued.isDone());
+
+        release.countDown();
+        assertEquals(200, holding.get(5, TimeUnit.SECONDS));
+        assertEquals(200, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Compartment of a tenant should release its permits once requests are done and be reused.")
+    public void busyBulkhead_whenRequestsAreDone_shouldReleasePermits() throws Exception {
+        TenantBulkhead bulkhead = new TenantBulkhead(properties(1, 0, 1000L));
+        Future<Integer> holding = executor.submit(() -> filter(bulkhead, true));
+        awaitInFlight(bulkhead, 1);
+
+        DatabaseConfig.DBContextHolder.setIdentifier(TENANT);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        bulkhead.doFilter(new MockHttpServletRequest(), rejected, (request, response) -> fail("Request should not pass"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals(1, bulkhead.getInFlight(TENANT));
+
+        release.countDown();
+        assertEquals(200, holding.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getInFlight(TENANT));
+        assertEquals(200, filter(bulkhead, false));
+    }
+
+    private int filter(TenantBulkhead bulkhead, boolean hold) throws Exception {
+        DatabaseConfig.DBContextHolder.setIdentifier(TENANT);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bulkhead.doFilter(new MockHttpServletRequest(), response, (request, ignored) -> {
+            try {
+                if (hold) release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return response.getStatus();
+    }
+
+    private void awaitInFlight(TenantBulkhead bulkhead, int inFlight) throws InterruptedException {
+        for (int i = 0; i < 500 && bulkhead.getInFlight(TENANT) < inFlight; i++) Thread.sleep(10);
+        assertEquals(inFlight, bulkhead.getInFlight(TENANT));
+    }
+
+    private static DatabaseProperties properties(int maxInFlight, int queueSize, long queueTimeout) {
+        DatabaseProperties databaseProperties = mock(DatabaseProperties.class);
+        when(databaseProperties.getTenantBulkheadMaxInFlight()).thenReturn(maxInFlight);
+        when(databaseProperties.getTenantBulkheadQueueSize()).thenReturn(queueSize);
+        when(databaseProperties.getTenantBulkheadQueueTimeout()).thenReturn(queueTimeout);
+        when(databaseProperties.getTenantMaxOpen()).thenReturn(10);
+        when(databaseProperties.getTenantIdleTimeout()).thenReturn(60000L);
+        return databaseProperties;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.multitenant.security;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.properties.SecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TenantRateLimiterTest {
+
+    private static final String STANDARD = DatabaseConfig.DBContextHolder.generateDataSourceName("standard@test.com");
+    private static final String UNLIMITED = DatabaseConfig.DBContextHolder.generateDataSourceName("unlimited@test.com");
+
+    private TenantRateLimiter rateLimiter;
+
+    @BeforeEach
+    public void beforeEach() {
+        SecurityProperties securityProperties = mock(SecurityProperties.class);
+        when(securityProperties.getRateTiers()).thenReturn(Set.of("standard", "unlimited"));
+        when(securityProperties.getRateDefaultTier()).thenReturn("standard");
+        when(securityProperties.getRateRequestsPerSecond("standard")).thenReturn(0.1);
+        when(securityProperties.getRateBurst("standard")).thenReturn(2);
+        when(securityProperties.getRateRequestsPerSecond("unlimited")).thenReturn(0.0);
+        when(securityProperties.getRateBurst("unlimited")).thenReturn(0);
+        when(securityProperties.getRateTier(anyString())).thenReturn("standard");
+        when(securityProperties.getRateTier(UNLIMITED)).thenReturn("unlimited");
+        when(securityProperties.getRateMaxTenants()).thenReturn(100L);
+
+        rateLimiter = new TenantRateLimiter(securityProperties);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @Test
+    @DisplayName("Exceeding burst of a tenant should return status too many requests with retry after.")
+    public void exhaustedBucket_whenFiltering_shouldReturnStatusTooManyRequests_andRetryAfter() throws Exception {
+        assertEquals(200, filter(STANDARD).getStatus());
+        assertEquals(200, filter(STANDARD).getStatus());
+
+        MockHttpServletResponse rejected = filter(STANDARD);
+        assertEquals(429, rejected.getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) > 0);
+
+        assertEquals(200, filter(DatabaseConfig.DBContextHolder.generateDataSourceName("other@test.com")).getStatus());
+    }
+
+    @Test
+    @DisplayName("Tenant of a tier without rate should never be limited.")
+    public void unlimitedTier_whenFiltering_shouldReturnStatusOk() throws Exception {
+        for (int i = 0; i < 100; i++) assertEquals(200, filter(UNLIMITED).getStatus());
+    }
+
+    @Test
+    @DisplayName("Exhausted bucket should stay exhausted while other tenants are limited.")
+    public void exhaustedBucket_whenFilteringOtherTenants_shouldStayExhausted() throws Exception {
+        for (int i = 0; i < 2; i++) filter(STANDARD);
+        assertEquals(429, filter(STANDARD).getStatus());
+
+        for (int i = 0; i < 50; i++) filter(DatabaseConfig.DBContextHolder.generateDataSourceName(i + "@test.com"));
+        assertEquals(429, filter(STANDARD).getStatus());
+    }
+
+    private MockHttpServletResponse filter(String tenant) throws Exception {
+        DatabaseConfig.DBContextHolder.setIdentifier(tenant);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimiter.doFilter(new MockHttpServletRequest(), response, (request, ignored) -> {});
+        return response;
+    }
+}
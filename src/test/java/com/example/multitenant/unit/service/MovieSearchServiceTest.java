@@ -0,0 +1,48 @@
+package com.example.multitenant.unit.service;
+
+import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.TenantRegistry;
+import com.example.multitenant.config.properties.DatabaseProperties;
+import com.example.multitenant.exceptionhandler.exceptions.UnavailableException;
+import com.example.multitenant.repository.MovieRepository;
+import com.example.multitenant.service.impl.MovieSearchServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MovieSearchServiceTest {
+
+    private static final String TENANT = DatabaseConfig.DBContextHolder.generateDataSourceName("search@test.com");
+
+    private final TenantRegistry tenantRegistry = new TenantRegistry(10, 0, identifier -> mock(DataSource.class), (identifier, dataSource) -> {});
+    private final MovieRepository movieRepository = mock(MovieRepository.class);
+    private MovieSearchServiceImpl movieSearchService;
+
+    @AfterEach
+    public void afterEach() {
+        movieSearchService.destroy();
+        DatabaseConfig.DBContextHolder.setDefault();
+    }
+
+    @Test
+    @DisplayName("Searching tenant with more movies than can be indexed should be refused without reading its movies.")
+    public void oversizedTenant_whenSearching_shouldThrowException_andNotReadMovies() {
+        DatabaseProperties databaseProperties = mock(DatabaseProperties.class);
+        when(databaseProperties.getTenantSearchMaxTitles()).thenReturn(1L);
+        when(movieRepository.count()).thenReturn(2L);
+        movieSearchService = new MovieSearchServiceImpl(movieRepository, databaseProperties, tenantRegistry);
+        DatabaseConfig.DBContextHolder.setIdentifier(TENANT);
+
+        assertThrows(UnavailableException.class, () -> movieSearchService.search("movie", 0, 10));
+        assertThrows(UnavailableException.class, () -> movieSearchService.search("movie", 0, 10));
+
+        verify(movieRepository, times(1)).count();
+        verify(movieRepository, never()).streamAll(any());
+    }
+}
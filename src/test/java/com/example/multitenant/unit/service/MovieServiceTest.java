@@ -1,17 +1,24 @@
 package com.example.multitenant.unit.service;
 
 import com.example.multitenant.config.DatabaseConfig;
+import com.example.multitenant.config.TenantRegistry;
 import com.example.multitenant.data.MovieData;
 import com.example.multitenant.data.UserData;
 import com.example.multitenant.entity.Movie;
 import com.example.multitenant.exceptionhandler.exceptions.NotFoundException;
 import com.example.multitenant.repository.MovieRepository;
 import com.example.multitenant.service.MovieService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -27,6 +34,9 @@ public class MovieServiceTest implements MovieData, UserData {
     @Autowired
     private DatabaseConfig databaseConfig;
 
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
     @BeforeEach
     public void beforeEach() {
         databaseConfig.setActiveDatasource(EMAIL);
@@ -51,6 +61,50 @@ public class MovieServiceTest implements MovieData, UserData {
         );
     }
 
+    @Test
+    @DisplayName("Getting entity again should serve it from the cache of the tenant until it is saved.")
+    public void cachedEntity_whenGettingEntity_shouldHitCache_untilSaved() {
+        String identifier = DatabaseConfig.DBContextHolder.getContext();
+        Long id = movieService.save(getMovie());
+
+        movieService.findDtoById(id);
+        CacheStats before = movieService.getCacheStats().get(identifier);
+        movieService.findDtoById(id);
+        CacheStats after = movieService.getCacheStats().get(identifier);
+
+        Movie changed = getMovie();
+        changed.setId(id);
+        changed.setVersion(0L);
+        changed.setTitle("Changed");
+        movieService.save(changed);
+
+        assertAll(
+                () -> assertEquals(1, after.hitCount() - before.hitCount()),
+                () -> assertEquals("Changed", movieService.findDtoById(id).getTitle())
+        );
+
+        tenantRegistry.evict(identifier);
+        assertFalse(movieService.getCacheStats().containsKey(identifier));
+        databaseConfig.setActiveDatasource(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Getting version of cached entity should serve it from the cache.")
+    public void cachedEntity_whenGettingVersion_shouldHitCache() {
+        String identifier = DatabaseConfig.DBContextHolder.getContext();
+        Long id = movieService.save(getMovie());
+
+        Long version = movieService.findDtoById(id).getVersion();
+        CacheStats before = movieService.getCacheStats().get(identifier);
+        Long cached = movieService.findVersion(id);
+        CacheStats after = movieService.getCacheStats().get(identifier);
+
+        assertAll(
+                () -> assertEquals(version, cached),
+                () -> assertEquals(1, after.hitCount() - before.hitCount())
+        );
+    }
+
     @Test
     @DisplayName("Trying to get a non-stored entity should throw an exception.")
     public void storedNothing_whenGettingEntity_shouldThrowException() {
@@ -75,4 +129,19 @@ public class MovieServiceTest implements MovieData, UserData {
                 () -> assertEquals(stored.getId(), id2)
         );
     }
+
+    @Test
+    @DisplayName("Saving entities at once should return their distinct ids.")
+    public void storedNothing_whenSavingEntities_shouldReturnDistinctIds() {
+        List<Movie> movies = IntStream.range(0, 120).mapToObj(i -> getMovie()).collect(Collectors.toList());
+
+        List<Long> ids = movieService.saveAll(movies);
+
+        assertAll(
+                () -> assertEquals(120, ids.size()),
+                () -> assertEquals(120, Set.copyOf(ids).size()),
+                () -> assertEquals(120, movieRepository.count()),
+                () -> assertEquals(movies.get(119).getId(), ids.get(119))
+        );
+    }
 }
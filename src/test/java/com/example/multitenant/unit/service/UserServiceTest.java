@@ -166,4 +166,20 @@ public class UserServiceTest implements UserData {
     public void storedNothing_whenCheckingEntity_shouldReturnTrue() {
         assertFalse(userService.existsByEmail(EMAIL));
     }
+
+    @Test
+    @DisplayName("Changing email of active entity should invalidate old email.")
+    public void activeEntity_whenChangingEmail_shouldInvalidateOldEmail() throws IOException {
+        userRepository.save(getUser());
+
+        assertTrue(userService.isActive(EMAIL));
+        userService.patchEmail(getUserEmail(NEW_EMAIL));
+
+        assertAll(
+                () -> assertFalse(userService.isActive(EMAIL)),
+                () -> assertTrue(userService.isActive(NEW_EMAIL))
+        );
+
+        databaseConfig.renameDatasource(NEW_EMAIL, EMAIL);
+    }
 }
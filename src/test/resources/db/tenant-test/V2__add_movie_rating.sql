@@ -0,0 +1 @@
+ALTER TABLE Movie ADD COLUMN rating INT;
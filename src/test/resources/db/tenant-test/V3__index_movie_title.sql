@@ -0,0 +1 @@
+CREATE INDEX idx_movie_title ON Movie (title);